@@ -0,0 +1,141 @@
+package com.airport.ridepooling.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.airport.ridepooling.model.Location;
+import com.airport.ridepooling.model.Passenger;
+import com.airport.ridepooling.model.Ride;
+import com.airport.ridepooling.model.RideSnapshot;
+import com.airport.ridepooling.model.RideStatus;
+import com.airport.ridepooling.repository.RideRepository;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Synthetic airport traffic and an in-memory RideRepository stub for benchmarks
+ *
+ * Pickups cluster around three terminals (with a share spread over the city),
+ * dropoffs are long-tailed: most trips are 5-20 km, a few go out to 40 km.
+ */
+final class BenchmarkFixtures {
+
+    private static final Location[] TERMINALS = {
+        new Location(28.5562, 77.1000), // T1
+        new Location(28.5550, 77.0850), // T2
+        new Location(28.5600, 77.0700)  // T3
+    };
+    private static final Location CITY_CENTER = new Location(28.6139, 77.2090);
+    private static final double KM_PER_DEGREE = 111.32;
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Silence per-request service logging so it does not dominate the measurement
+     */
+    static void quietLogging() {
+        ((Logger) LoggerFactory.getLogger("com.airport.ridepooling")).setLevel(Level.WARN);
+    }
+
+    /**
+     * A passenger arriving at the airport
+     */
+    static Passenger passenger(Long id, Random random) {
+        Location pickup;
+        if (random.nextDouble() < 0.8) {
+            pickup = offset(TERMINALS[random.nextInt(TERMINALS.length)], random.nextGaussian() * 0.5, random.nextGaussian() * 0.5);
+        } else {
+            pickup = offset(CITY_CENTER, (random.nextDouble() - 0.5) * 30, (random.nextDouble() - 0.5) * 30);
+        }
+
+        // Long-tailed trip length towards the city
+        double tripKm = Math.min(5 + random.nextExponential() * 8, 40);
+        double bearing = Math.atan2(CITY_CENTER.getLatitude() - pickup.getLatitude(),
+                CITY_CENTER.getLongitude() - pickup.getLongitude()) + random.nextGaussian() * 0.5;
+        Location dropoff = offset(pickup, Math.sin(bearing) * tripKm, Math.cos(bearing) * tripKm);
+
+        Passenger passenger = new Passenger();
+        passenger.setId(id);
+        passenger.setName("passenger-" + id);
+        passenger.setPhone("0000000000");
+        passenger.setPickupLocation(pickup);
+        passenger.setDropoffLocation(dropoff);
+        passenger.setLuggageCount(random.nextInt(3));
+        passenger.setMaxDetourMinutes(10 + random.nextInt(20));
+        return passenger;
+    }
+
+    /**
+     * A PENDING ride with one passenger on board
+     */
+    static Ride pendingRide(long id, Random random) {
+        Ride ride = new Ride();
+        ride.setId(id);
+        ride.setVersion(0L);
+        ride.setStatus(RideStatus.PENDING);
+        ride.addPassenger(passenger(id, random));
+        return ride;
+    }
+
+    /**
+     * RideRepository backed by a map; supports only the calls the matching
+     * and pricing paths make
+     */
+    static RideRepository rideRepository(Map<Long, Ride> rides) {
+        return (RideRepository) Proxy.newProxyInstance(
+                RideRepository.class.getClassLoader(),
+                new Class<?>[]{RideRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findSnapshotsById" -> {
+                        List<RideSnapshot> found = new ArrayList<>();
+                        for (Object id : (Iterable<?>) args[0]) {
+                            Ride ride = rides.get(id);
+                            if (ride != null) {
+                                found.add(RideSnapshot.of(ride));
+                            }
+                        }
+                        yield found;
+                    }
+                    case "findAvailableRidesByStatus" -> rides.values().stream()
+                            .filter(ride -> ride.getStatus() == args[0] && ride.getAvailableSeats() > 0)
+                            .toList();
+                    case "countGroupedByStatus" -> List.of(statusCount(RideStatus.PENDING, rides.size(),
+                            rides.values().stream().mapToLong(ride -> ride.getMaxSeats() - ride.getAvailableSeats()).sum()));
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "StubRideRepository";
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static RideRepository.StatusCount statusCount(RideStatus status, long count, long seated) {
+        return new RideRepository.StatusCount() {
+            @Override
+            public RideStatus getStatus() {
+                return status;
+            }
+
+            @Override
+            public long getCount() {
+                return count;
+            }
+
+            @Override
+            public long getSeated() {
+                return seated;
+            }
+        };
+    }
+
+    private static Location offset(Location origin, double northKm, double eastKm) {
+        double latitude = origin.getLatitude() + northKm / KM_PER_DEGREE;
+        double longitude = origin.getLongitude()
+                + eastKm / (KM_PER_DEGREE * Math.cos(Math.toRadians(origin.getLatitude())));
+        return new Location(latitude, longitude);
+    }
+}
@@ -0,0 +1,132 @@
+package com.airport.ridepooling.benchmark;
+
+import com.airport.ridepooling.model.GeoPoint;
+import com.airport.ridepooling.model.Location;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-candidate cost of the radius check in matching
+ * Each invocation checks one pickup against CANDIDATES ride anchors around the airport
+ *
+ * Compares the original uncached Haversine (atan2 form) with the cached GeoPoint
+ * paths: exact Haversine, equirectangular approximation and squared approximation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GeoDistanceBenchmark {
+
+    private static final int CANDIDATES = 1024;
+    private static final double RADIUS_KM = 5.0;
+
+    private Location pickup;
+    private Location[] anchors;
+    private GeoPoint pickupPoint;
+    private GeoPoint[] anchorPoints;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        pickup = new Location(28.5562, 77.1000);
+        pickupPoint = pickup.toGeoPoint();
+
+        anchors = new Location[CANDIDATES];
+        anchorPoints = new GeoPoint[CANDIDATES];
+        for (int i = 0; i < CANDIDATES; i++) {
+            // Spread anchors over roughly +-10 km around the pickup
+            anchors[i] = new Location(28.5562 + (random.nextDouble() - 0.5) * 0.18,
+                                      77.1000 + (random.nextDouble() - 0.5) * 0.2);
+            anchorPoints[i] = anchors[i].toGeoPoint();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CANDIDATES)
+    public int legacyHaversine() {
+        int withinRadius = 0;
+        for (Location anchor : anchors) {
+            if (legacyDistance(anchor, pickup) <= RADIUS_KM) {
+                withinRadius++;
+            }
+        }
+        return withinRadius;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CANDIDATES)
+    public int locationDistanceTo() {
+        int withinRadius = 0;
+        for (Location anchor : anchors) {
+            if (anchor.distanceTo(pickup) <= RADIUS_KM) {
+                withinRadius++;
+            }
+        }
+        return withinRadius;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CANDIDATES)
+    public int geoPointHaversine() {
+        int withinRadius = 0;
+        for (GeoPoint anchor : anchorPoints) {
+            if (anchor.distanceKm(pickupPoint) <= RADIUS_KM) {
+                withinRadius++;
+            }
+        }
+        return withinRadius;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CANDIDATES)
+    public int geoPointApprox() {
+        int withinRadius = 0;
+        for (GeoPoint anchor : anchorPoints) {
+            if (anchor.approxDistanceKm(pickupPoint) <= RADIUS_KM) {
+                withinRadius++;
+            }
+        }
+        return withinRadius;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CANDIDATES)
+    public int geoPointApproxSquared() {
+        double radiusSquared = RADIUS_KM * RADIUS_KM;
+        int withinRadius = 0;
+        for (GeoPoint anchor : anchorPoints) {
+            if (anchor.approxDistanceSquaredKm(pickupPoint) <= radiusSquared) {
+                withinRadius++;
+            }
+        }
+        return withinRadius;
+    }
+
+    /**
+     * The original Location.distanceTo implementation, kept as the baseline
+     */
+    private static double legacyDistance(Location from, Location to) {
+        final double EARTH_RADIUS_KM = 6371.0;
+
+        double dLat = Math.toRadians(to.getLatitude() - from.getLatitude());
+        double dLon = Math.toRadians(to.getLongitude() - from.getLongitude());
+
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                   Math.cos(Math.toRadians(from.getLatitude())) *
+                   Math.cos(Math.toRadians(to.getLatitude())) *
+                   Math.sin(dLon / 2) * Math.sin(dLon / 2);
+
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+
+        return EARTH_RADIUS_KM * c;
+    }
+}
@@ -0,0 +1,111 @@
+package com.airport.ridepooling.benchmark;
+
+import com.airport.ridepooling.model.Passenger;
+import com.airport.ridepooling.model.Ride;
+import com.airport.ridepooling.model.RideSnapshot;
+import com.airport.ridepooling.repository.RideRepository;
+import com.airport.ridepooling.service.MatchingService;
+import com.airport.ridepooling.service.PendingRideIndex;
+import com.airport.ridepooling.service.RideMetrics;
+import com.airport.ridepooling.service.RoutePlanner;
+import com.airport.ridepooling.service.SeatLedger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Matching cost against synthetic pending-ride pools of 100 to 100k rides
+ *
+ * findBestMatch runs the production path (spatial index, route insertion, ledger);
+ * scanAllRides evaluates every pending ride, as the original full-table matching did,
+ * and serves as the baseline the index is judged against.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MatchingBenchmark {
+
+    private static final int REQUESTS = 1024;
+
+    @Param({"100", "1000", "10000", "100000"})
+    private int pendingRides;
+
+    private MatchingService matchingService;
+    private RideSnapshot[] rides;
+    private Passenger[] requests;
+    private int next;
+
+    @Setup
+    public void setup() {
+        BenchmarkFixtures.quietLogging();
+        Random random = new Random(42);
+
+        Map<Long, Ride> ridesById = new HashMap<>();
+        rides = new RideSnapshot[pendingRides];
+        for (int i = 0; i < pendingRides; i++) {
+            Ride ride = BenchmarkFixtures.pendingRide((long) i + 1, random);
+            ridesById.put(ride.getId(), ride);
+            rides[i] = RideSnapshot.of(ride);
+        }
+        RideRepository rideRepository = BenchmarkFixtures.rideRepository(ridesById);
+
+        PendingRideIndex pendingRideIndex = new PendingRideIndex();
+        ReflectionTestUtils.setField(pendingRideIndex, "rideRepository", rideRepository);
+        pendingRideIndex.rebuild();
+
+        // Routes are cached after commit in production
+        RoutePlanner routePlanner = new RoutePlanner();
+        for (Ride ride : ridesById.values()) {
+            routePlanner.store(ride, routePlanner.routeFor(ride));
+        }
+
+        matchingService = new MatchingService();
+        ReflectionTestUtils.setField(matchingService, "rideRepository", rideRepository);
+        ReflectionTestUtils.setField(matchingService, "pendingRideIndex", pendingRideIndex);
+        ReflectionTestUtils.setField(matchingService, "routePlanner", routePlanner);
+        ReflectionTestUtils.setField(matchingService, "seatLedger", new SeatLedger());
+        ReflectionTestUtils.setField(matchingService, "rideMetrics", new RideMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(matchingService, "spatialIndexEnabled", true);
+
+        requests = new Passenger[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            requests[i] = BenchmarkFixtures.passenger(null, random);
+        }
+    }
+
+    @Benchmark
+    public RideSnapshot findBestMatch() {
+        return matchingService.findBestMatch(nextRequest());
+    }
+
+    @Benchmark
+    public MatchingService.Candidate scanAllRides() {
+        Passenger request = nextRequest();
+        MatchingService.Candidate best = null;
+        for (RideSnapshot ride : rides) {
+            MatchingService.Candidate candidate = matchingService.evaluate(ride, request);
+            if (candidate != null && (best == null || candidate.detourCost() < best.detourCost())) {
+                best = candidate;
+            }
+        }
+        return best;
+    }
+
+    private Passenger nextRequest() {
+        Passenger request = requests[next];
+        next = (next + 1) % REQUESTS;
+        return request;
+    }
+}
@@ -0,0 +1,159 @@
+package com.airport.ridepooling.benchmark;
+
+import com.airport.ridepooling.RidePoolingApplication;
+import com.airport.ridepooling.dto.RideRequestDTO;
+import com.airport.ridepooling.dto.RideResponseDTO;
+import com.airport.ridepooling.model.Passenger;
+import com.airport.ridepooling.service.PendingRideIndex;
+import com.airport.ridepooling.service.RideService;
+import com.airport.ridepooling.service.RideStatusCounters;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Booking write path against the real persistence stack (Spring Data JPA,
+ * Hibernate, in-memory H2)
+ *
+ * bookOne books a single request per transaction, bookGroup a flight group of
+ * GROUP_SIZE requests in one transaction. jdbcBatchSize=1 turns JDBC batching off.
+ *
+ * Open rides are dispatched every POOL_TURNOVER bookings (outside the measurement),
+ * so the matching pool stays the size of a busy curb instead of growing all trial.
+ *
+ * Reports bookings/s; at the end of each trial it prints the JDBC statements
+ * prepared per booking (Hibernate statistics, counting each JDBC batch once),
+ * split into entity inserts and updates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class PersistenceBenchmark {
+
+    private static final int REQUESTS = 4096;
+    private static final int GROUP_SIZE = 16;
+    private static final int POOL_TURNOVER = 512;
+
+    @Param({"1", "50"})
+    private int jdbcBatchSize;
+
+    private ConfigurableApplicationContext context;
+    private RideService rideService;
+    private JdbcTemplate jdbcTemplate;
+    private PendingRideIndex pendingRideIndex;
+    private RideStatusCounters rideStatusCounters;
+    private Statistics statistics;
+    private RideRequestDTO[] requests;
+    private int next;
+    private long bookings;
+    private long dispatchedAt;
+    private long excludedStatements;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(RidePoolingApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:persistence;DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.generate_statistics=true",
+                        "--spring.jpa.properties.hibernate.jdbc.batch_size=" + jdbcBatchSize,
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.airport.ridepooling=WARN",
+                        "--logging.level.org.hibernate=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+        rideService = context.getBean(RideService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        pendingRideIndex = context.getBean(PendingRideIndex.class);
+        rideStatusCounters = context.getBean(RideStatusCounters.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        Random random = new Random(42);
+        requests = new RideRequestDTO[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            Passenger passenger = BenchmarkFixtures.passenger((long) i, random);
+            requests[i] = new RideRequestDTO(passenger.getName(), passenger.getPhone(),
+                    passenger.getPickupLocation(), passenger.getDropoffLocation(),
+                    passenger.getLuggageCount(), passenger.getMaxDetourMinutes());
+        }
+
+        statistics.clear();
+        bookings = 0;
+        dispatchedAt = 0;
+        excludedStatements = 0;
+    }
+
+    @Setup(Level.Invocation)
+    public void dispatchOpenRides() {
+        if (bookings - dispatchedAt < POOL_TURNOVER) {
+            return;
+        }
+        long prepared = statistics.getPrepareStatementCount();
+        jdbcTemplate.update("UPDATE rides SET status = 'IN_PROGRESS' WHERE status IN ('PENDING', 'MATCHED')");
+        pendingRideIndex.rebuild();
+        rideStatusCounters.reconcile();
+        // Keep the dispatch out of the per-booking statement count
+        excludedStatements += statistics.getPrepareStatementCount() - prepared;
+        dispatchedAt = bookings;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (bookings > 0) {
+            System.out.printf("%njdbcBatchSize=%d: %.2f statements per booking (%.2f inserts, %.2f updates) over %d bookings%n",
+                    jdbcBatchSize,
+                    (statistics.getPrepareStatementCount() - excludedStatements) / (double) bookings,
+                    statistics.getEntityInsertCount() / (double) bookings,
+                    statistics.getEntityUpdateCount() / (double) bookings,
+                    bookings);
+        }
+        context.close();
+    }
+
+    @Benchmark
+    public RideResponseDTO bookOne() {
+        bookings++;
+        return rideService.requestRide(nextRequest());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(GROUP_SIZE)
+    public List<RideResponseDTO> bookGroup() {
+        List<RideRequestDTO> group = new ArrayList<>(GROUP_SIZE);
+        for (int i = 0; i < GROUP_SIZE; i++) {
+            group.add(nextRequest());
+        }
+        bookings += GROUP_SIZE;
+        return rideService.requestRides(group);
+    }
+
+    private RideRequestDTO nextRequest() {
+        RideRequestDTO request = requests[next];
+        next = (next + 1) % REQUESTS;
+        return request;
+    }
+}
@@ -0,0 +1,96 @@
+package com.airport.ridepooling.benchmark;
+
+import com.airport.ridepooling.model.Location;
+import com.airport.ridepooling.model.Passenger;
+import com.airport.ridepooling.model.Ride;
+import com.airport.ridepooling.service.PricingService;
+import com.airport.ridepooling.service.RideMetrics;
+import com.airport.ridepooling.service.RideStatusCounters;
+import com.airport.ridepooling.service.SurgeEngine;
+import com.airport.ridepooling.service.ZoneResolver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fare calculation on the booking path, with a stubbed repository behind the
+ * demand counters and a surge engine warmed with airport traffic
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PricingBenchmark {
+
+    private static final int REQUESTS = 1024;
+    private static final int PENDING_RIDES = 500;
+
+    private PricingService pricingService;
+    private SurgeEngine surgeEngine;
+    private Location[] pickups;
+    private double[] distances;
+    private int next;
+
+    @Setup
+    public void setup() {
+        BenchmarkFixtures.quietLogging();
+        Random random = new Random(42);
+
+        Map<Long, Ride> rides = new HashMap<>();
+        for (long id = 1; id <= PENDING_RIDES; id++) {
+            rides.put(id, BenchmarkFixtures.pendingRide(id, random));
+        }
+
+        RideStatusCounters rideStatusCounters = new RideStatusCounters();
+        ReflectionTestUtils.setField(rideStatusCounters, "rideRepository", BenchmarkFixtures.rideRepository(rides));
+        rideStatusCounters.reconcile();
+
+        ZoneResolver zoneResolver = new ZoneResolver();
+        surgeEngine = new SurgeEngine();
+        ReflectionTestUtils.setField(surgeEngine, "zoneResolver", zoneResolver);
+        ReflectionTestUtils.invokeMethod(surgeEngine, "init");
+
+        pricingService = new PricingService();
+        ReflectionTestUtils.setField(pricingService, "rideStatusCounters", rideStatusCounters);
+        ReflectionTestUtils.setField(pricingService, "surgeEngine", surgeEngine);
+        ReflectionTestUtils.setField(pricingService, "zoneResolver", zoneResolver);
+        ReflectionTestUtils.setField(pricingService, "rideMetrics", new RideMetrics(new SimpleMeterRegistry()));
+
+        pickups = new Location[REQUESTS];
+        distances = new double[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            Passenger passenger = BenchmarkFixtures.passenger(null, random);
+            pickups[i] = passenger.getPickupLocation();
+            distances[i] = passenger.getDirectDistance();
+            surgeEngine.recordRequest(pickups[i]);
+        }
+    }
+
+    @Benchmark
+    public double calculateFare() {
+        int i = next;
+        next = (next + 1) % REQUESTS;
+        return pricingService.calculateFare(distances[i], 1 + (i & 3), pickups[i]);
+    }
+
+    @Benchmark
+    public void recordRequest() {
+        surgeEngine.recordRequest(pickups[next]);
+        next = (next + 1) % REQUESTS;
+    }
+
+    @Benchmark
+    public PricingService.SurgeInfo getCurrentSurgeInfo() {
+        return pricingService.getCurrentSurgeInfo();
+    }
+}
@@ -0,0 +1,88 @@
+package com.airport.ridepooling.benchmark;
+
+import com.airport.ridepooling.model.Passenger;
+import com.airport.ridepooling.model.Ride;
+import com.airport.ridepooling.service.RoutePlanner;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Route and detour helpers on rides with 1 to 3 passengers on board
+ *
+ * - findInsertion: the detour check run for every candidate ride
+ * - insert: planning the route of a confirmed join
+ * - routeForCached / routeForRebuild: route lookup with and without the per-ride cache
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RoutePlannerBenchmark {
+
+    private static final int REQUESTS = 1024;
+
+    @Param({"1", "2", "3"})
+    private int passengersOnBoard;
+
+    private RoutePlanner routePlanner;
+    private Ride cachedRide;
+    private Ride uncachedRide;
+    private RoutePlanner.Route route;
+    private Passenger[] requests;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        routePlanner = new RoutePlanner();
+
+        cachedRide = BenchmarkFixtures.pendingRide(1L, random);
+        uncachedRide = BenchmarkFixtures.pendingRide(2L, random);
+        for (int i = 1; i < passengersOnBoard; i++) {
+            cachedRide.addPassenger(BenchmarkFixtures.passenger((long) 100 + i, random));
+            uncachedRide.addPassenger(BenchmarkFixtures.passenger((long) 200 + i, random));
+        }
+
+        route = routePlanner.routeFor(cachedRide);
+        routePlanner.store(cachedRide, route);
+
+        requests = new Passenger[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            requests[i] = BenchmarkFixtures.passenger(null, random);
+        }
+    }
+
+    @Benchmark
+    public RoutePlanner.Insertion findInsertion() {
+        return routePlanner.findInsertion(route, nextRequest());
+    }
+
+    @Benchmark
+    public RoutePlanner.Route insert() {
+        return routePlanner.insert(route, nextRequest());
+    }
+
+    @Benchmark
+    public RoutePlanner.Route routeForCached() {
+        return routePlanner.routeFor(cachedRide);
+    }
+
+    @Benchmark
+    public RoutePlanner.Route routeForRebuild() {
+        return routePlanner.routeFor(uncachedRide);
+    }
+
+    private Passenger nextRequest() {
+        Passenger request = requests[next];
+        next = (next + 1) % REQUESTS;
+        return request;
+    }
+}
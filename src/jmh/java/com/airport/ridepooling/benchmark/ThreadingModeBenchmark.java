@@ -0,0 +1,208 @@
+package com.airport.ridepooling.benchmark;
+
+import com.airport.ridepooling.RidePoolingApplication;
+import com.airport.ridepooling.dto.RideRequestDTO;
+import com.airport.ridepooling.model.Passenger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Platform vs virtual request threads on the real ride-request path
+ * Boots the application with its embedded Tomcat and in-memory H2 and fires bursts of CONCURRENCY POST /api/rides/request calls at it over HTTP, so each
+ * request goes through RideController, RideService, matching, pricing and JDBC.
+ *
+ * - platform: Tomcat's platform request threads (server.tomcat.threads.max =
+ *   platformThreads) with a JDBC pool of platformConnectionPoolSize
+ * - virtual: the virtual-threads Spring profile (spring.threads.virtual.enabled, as
+ *   shipped) with a JDBC pool of virtualConnectionPoolSize
+ *
+ * Every iteration runs against a freshly booted application on its own database, so
+ * the matching pool, seat ledger, planned routes, expiry timers and caches start empty
+ * each time and no state (or expiry timer) from an earlier iteration reaches the
+ * measurement. Boot time falls outside the measured iterations.
+ *
+ * Reports throughput (requests/s). After every iteration it prints that iteration's
+ * p50/p99 latency and error count; the samples are reset per iteration, so warmup
+ * iterations never leak into measured percentiles. The "virtual" mode needs Java 21
+ * (run with -Pbenchmark,jdk21).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class ThreadingModeBenchmark {
+
+    private static final int CONCURRENCY = 500;
+    private static final int REQUESTS = 4096;
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    // Tomcat default max threads
+    @Param({"200"})
+    private int platformThreads;
+
+    // Hikari maximum-pool-size per mode: the Hikari default for platform threads,
+    // the virtual-threads profile's size for virtual threads
+    @Param({"10"})
+    private int platformConnectionPoolSize;
+
+    @Param({"32"})
+    private int virtualConnectionPoolSize;
+
+    private List<String> applicationArgs;
+    private int iteration;
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private URI requestUri;
+    private String[] requestBodies;
+    private int next;
+
+    private long[] latencies;
+    private int recorded;
+    private final AtomicInteger errors = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        boolean virtual = "virtual".equals(threads);
+        if (virtual && Runtime.version().feature() < 21) {
+            // Spring Boot would silently fall back to platform threads
+            throw new IllegalStateException("Virtual threads need Java 21, running on " + Runtime.version());
+        }
+
+        applicationArgs = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.airport.ridepooling=WARN",
+                "--logging.level.org.hibernate=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"));
+        if (virtual) {
+            applicationArgs.add("--spring.profiles.active=virtual-threads");
+            applicationArgs.add("--spring.datasource.hikari.maximum-pool-size=" + virtualConnectionPoolSize);
+            applicationArgs.add("--spring.datasource.hikari.minimum-idle=" + virtualConnectionPoolSize);
+        } else {
+            applicationArgs.add("--spring.threads.virtual.enabled=false");
+            applicationArgs.add("--server.tomcat.threads.max=" + platformThreads);
+            applicationArgs.add("--spring.datasource.hikari.maximum-pool-size=" + platformConnectionPoolSize);
+        }
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() throws Exception {
+        List<String> args = new ArrayList<>(applicationArgs);
+        args.add("--spring.datasource.url=jdbc:h2:mem:threading-" + threads + "-" + iteration++);
+        context = new SpringApplicationBuilder(RidePoolingApplication.class).run(args.toArray(new String[0]));
+
+        String port = context.getEnvironment().getProperty("local.server.port");
+        requestUri = URI.create("http://localhost:" + port + "/api/rides/request");
+        if (requestBodies == null) {
+            requestBodies = requestBodies(context.getBean(ObjectMapper.class));
+        }
+
+        latencies = new long[CONCURRENCY * 16];
+        recorded = 0;
+        errors.set(0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void finishIteration() {
+        context.close();
+        if (recorded == 0) {
+            return;
+        }
+        long[] sorted = Arrays.copyOf(latencies, recorded);
+        Arrays.sort(sorted);
+        System.out.printf("%n%s threads: p50 %.2f ms, p99 %.2f ms over %d requests, %d errors%n",
+                threads, percentile(sorted, 0.50), percentile(sorted, 0.99), sorted.length, errors.get());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CONCURRENCY)
+    public void burst() {
+        long[] burstLatencies = new long[CONCURRENCY];
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[CONCURRENCY];
+
+        for (int i = 0; i < CONCURRENCY; i++) {
+            HttpRequest request = HttpRequest.newBuilder(requestUri)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(nextRequestBody()))
+                    .build();
+            int slot = i;
+            long submitted = System.nanoTime();
+            responses[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        burstLatencies[slot] = System.nanoTime() - submitted;
+                        if (failure != null || response.statusCode() / 100 != 2) {
+                            errors.incrementAndGet();
+                        }
+                    });
+        }
+        CompletableFuture.allOf(responses).exceptionally(failure -> null).join();
+        record(burstLatencies);
+    }
+
+    private static String[] requestBodies(ObjectMapper objectMapper) throws Exception {
+        Random random = new Random(42);
+        String[] bodies = new String[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            Passenger passenger = BenchmarkFixtures.passenger((long) i, random);
+            bodies[i] = objectMapper.writeValueAsString(new RideRequestDTO(passenger.getName(),
+                    passenger.getPhone(), passenger.getPickupLocation(), passenger.getDropoffLocation(),
+                    passenger.getLuggageCount(), passenger.getMaxDetourMinutes()));
+        }
+        return bodies;
+    }
+
+    private String nextRequestBody() {
+        String body = requestBodies[next];
+        next = (next + 1) % REQUESTS;
+        return body;
+    }
+
+    private void record(long[] burstLatencies) {
+        if (recorded + burstLatencies.length > latencies.length) {
+            latencies = Arrays.copyOf(latencies, latencies.length * 2);
+        }
+        System.arraycopy(burstLatencies, 0, latencies, recorded, burstLatencies.length);
+        recorded += burstLatencies.length;
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        int rank = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(rank, 0)] / 1_000_000.0;
+    }
+}
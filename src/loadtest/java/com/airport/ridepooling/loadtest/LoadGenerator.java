@@ -0,0 +1,409 @@
+package com.airport.ridepooling.loadtest;
+
+import com.airport.ridepooling.RidePoolingApplication;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Closed-loop HTTP load generator for the ride API
+ *
+ * Boots the application in-process on an in-memory H2 database (or targets a running
+ * server with --target=http://host:port) and drives it with N clients that each send
+ * the next request as soon as the previous one returns.
+ *
+ * Traffic comes in arrival waves: each "flight" lands at one terminal and its
+ * passengers request rides from around that terminal's curb; dropoffs are
+ * long-tailed towards the city. Each client also reads back and cancels some of
+ * its own bookings.
+ *
+ * Reports HdrHistogram p50/p99/p999 latency and throughput per endpoint and the pooling
+ * rate. Booking retries, conflicts and the server-side split of booking time
+ * (candidate query, candidate loop, pricing, commit) come from the application's
+ * ridepooling.* meters on /actuator/metrics, sampled before and after the run.
+ *
+ * Run: mvn -Ploadtest test-compile exec:exec -Dloadtest.args="--concurrency=64 --duration=60"
+ * Options: --concurrency=N --duration=SECONDS --warmup=SECONDS --wave-size=PASSENGERS
+ *          --read-ratio=0.2 --cancel-ratio=0.1 --seed=N --target=URL
+ *          any other --key=value is passed to the application (e.g. --ridepooling.matching.batch.enabled=true)
+ */
+public class LoadGenerator {
+
+    private static final double[][] TERMINALS = {
+        {28.5562, 77.1000}, // T1
+        {28.5550, 77.0850}, // T2
+        {28.5600, 77.0700}  // T3
+    };
+    private static final double[] CITY_CENTER = {28.6139, 77.2090};
+    private static final double KM_PER_DEGREE = 111.32;
+    private static final long MAX_LATENCY_MICROS = 60_000_000L;
+
+    private enum Endpoint { REQUEST, GET_RIDE, CANCEL }
+
+    private static final List<String> SERVER_TIMERS = List.of(
+            "ridepooling.booking.duration",
+            "ridepooling.matching.duration",
+            "ridepooling.matching.query",
+            "ridepooling.matching.evaluation",
+            "ridepooling.pricing.duration",
+            "ridepooling.booking.commit");
+
+    // {label, meter, tag filter}
+    private static final List<String[]> SERVER_COUNTERS = List.of(
+            new String[]{"retries", "ridepooling.booking.retries", null},
+            new String[]{"optimistic-lock", "ridepooling.booking.conflicts", "type:optimistic-lock"},
+            new String[]{"seat-ledger", "ridepooling.booking.conflicts", "type:seat-ledger"},
+            new String[]{"expired", "ridepooling.rides.expired", null},
+            new String[]{"queued", "ridepooling.admission.requests", "outcome:queued"},
+            new String[]{"degraded", "ridepooling.admission.requests", "outcome:degraded"},
+            new String[]{"rejected", "ridepooling.admission.requests", "outcome:rejected"});
+
+    private final Map<String, String> options;
+    private final List<String> applicationArgs;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private final Map<Endpoint, Histogram> latencies = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, AtomicLong> errors = new EnumMap<>(Endpoint.class);
+    private final AtomicLong passengersArrived = new AtomicLong();
+    private final AtomicLong pooledBookings = new AtomicLong();
+    private final AtomicLong bookings = new AtomicLong();
+
+    private String baseUrl;
+    private volatile boolean measuring;
+    private volatile boolean running = true;
+
+    LoadGenerator(Map<String, String> options, List<String> applicationArgs) {
+        this.options = options;
+        this.applicationArgs = applicationArgs;
+        for (Endpoint endpoint : Endpoint.values()) {
+            latencies.put(endpoint, new ConcurrentHistogram(MAX_LATENCY_MICROS, 3));
+            errors.put(endpoint, new AtomicLong());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        List<String> applicationArgs = new ArrayList<>();
+        for (String arg : args) {
+            String[] pair = arg.replaceFirst("^--", "").split("=", 2);
+            switch (pair[0]) {
+                case "concurrency", "duration", "warmup", "wave-size", "read-ratio", "cancel-ratio", "seed", "target" ->
+                        options.put(pair[0], pair.length > 1 ? pair[1] : "");
+                default -> applicationArgs.add(arg);
+            }
+        }
+        new LoadGenerator(options, applicationArgs).run();
+    }
+
+    private void run() throws Exception {
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "64"));
+        int durationSeconds = Integer.parseInt(options.getOrDefault("duration", "60"));
+        int warmupSeconds = Integer.parseInt(options.getOrDefault("warmup", "10"));
+
+        ConfigurableApplicationContext context = null;
+        if (options.containsKey("target")) {
+            baseUrl = options.get("target");
+        } else {
+            context = startApplication();
+            baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+        }
+
+        System.out.printf("Driving %s with %d closed-loop clients (warmup %d s, measure %d s)%n",
+                baseUrl, concurrency, warmupSeconds, durationSeconds);
+
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        CountDownLatch finished = new CountDownLatch(concurrency);
+        for (int i = 0; i < concurrency; i++) {
+            SplittableRandom random = new SplittableRandom(seed + i);
+            Thread client = new Thread(() -> {
+                try {
+                    clientLoop(random);
+                } finally {
+                    finished.countDown();
+                }
+            }, "load-client-" + i);
+            client.setDaemon(true);
+            client.start();
+        }
+
+        Thread.sleep(warmupSeconds * 1000L);
+        resetMeasurements();
+        ServerSample before = sampleServer();
+        measuring = true;
+        long start = System.nanoTime();
+        Thread.sleep(durationSeconds * 1000L);
+        measuring = false;
+        double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+        ServerSample after = sampleServer();
+        running = false;
+        finished.await();
+
+        report(elapsedSeconds, concurrency, before, after);
+
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    /**
+     * Start the application on a random port with quiet logging
+     */
+    private ConfigurableApplicationContext startApplication() {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--spring.h2.console.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.airport.ridepooling=WARN",
+                "--logging.level.org.hibernate.SQL=WARN",
+                "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN"));
+        args.addAll(applicationArgs);
+        return SpringApplication.run(RidePoolingApplication.class, args.toArray(String[]::new));
+    }
+
+    private void clientLoop(SplittableRandom random) {
+        double readRatio = Double.parseDouble(options.getOrDefault("read-ratio", "0.2"));
+        double cancelRatio = Double.parseDouble(options.getOrDefault("cancel-ratio", "0.1"));
+        List<long[]> booked = new ArrayList<>(); // {rideId, passengerId}
+
+        while (running) {
+            double roll = random.nextDouble();
+            if (!booked.isEmpty() && roll < cancelRatio) {
+                long[] booking = booked.remove(random.nextInt(booked.size()));
+                send(Endpoint.CANCEL, HttpRequest.newBuilder(URI.create(baseUrl + "/api/rides/passenger/" + booking[1])).DELETE());
+            } else if (!booked.isEmpty() && roll < cancelRatio + readRatio) {
+                long[] booking = booked.get(random.nextInt(booked.size()));
+                send(Endpoint.GET_RIDE, HttpRequest.newBuilder(URI.create(baseUrl + "/api/rides/" + booking[0])).GET());
+            } else {
+                JsonNode response = send(Endpoint.REQUEST, HttpRequest.newBuilder(URI.create(baseUrl + "/api/rides/request"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(nextArrival(random))));
+                if (response != null) {
+                    booked.add(new long[]{response.get("rideId").asLong(), response.get("passengerId").asLong()});
+                    if (measuring) {
+                        bookings.incrementAndGet();
+                        if (response.get("isPooled").asBoolean()) {
+                            pooledBookings.incrementAndGet();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Next arriving passenger: flights land one after another, each at one terminal,
+     * and their passengers queue at that terminal's curb
+     */
+    private String nextArrival(SplittableRandom random) {
+        int waveSize = Integer.parseInt(options.getOrDefault("wave-size", "40"));
+        long flight = passengersArrived.getAndIncrement() / waveSize;
+        double[] terminal = TERMINALS[(int) ((flight * 0x9E3779B97F4A7C15L >>> 33) % TERMINALS.length)];
+
+        double[] pickup = offset(terminal, gaussian(random) * 0.15, gaussian(random) * 0.15);
+        double tripKm = Math.min(5 + -Math.log(1 - random.nextDouble()) * 8, 40);
+        double bearing = Math.atan2(CITY_CENTER[0] - pickup[0], CITY_CENTER[1] - pickup[1]) + gaussian(random) * 0.5;
+        double[] dropoff = offset(pickup, Math.sin(bearing) * tripKm, Math.cos(bearing) * tripKm);
+
+        ObjectNode request = objectMapper.createObjectNode();
+        request.put("name", "passenger-" + random.nextInt(1_000_000));
+        request.put("phone", String.format("%010d", random.nextLong(10_000_000_000L)));
+        request.putObject("pickupLocation").put("latitude", pickup[0]).put("longitude", pickup[1]);
+        request.putObject("dropoffLocation").put("latitude", dropoff[0]).put("longitude", dropoff[1]);
+        request.put("luggageCount", random.nextInt(3));
+        request.put("maxDetourMinutes", 10 + random.nextInt(20));
+        return request.toString();
+    }
+
+    /**
+     * Send one request and record its latency
+     * @return Parsed body of a successful response, or null on error
+     */
+    private JsonNode send(Endpoint endpoint, HttpRequest.Builder builder) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = httpClient.send(builder.timeout(Duration.ofSeconds(30)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            record(endpoint, start);
+            if (response.statusCode() >= 400) {
+                countError(endpoint);
+                return null;
+            }
+            return objectMapper.readTree(response.body());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+            return null;
+        } catch (Exception e) {
+            record(endpoint, start);
+            countError(endpoint);
+            return null;
+        }
+    }
+
+    private void record(Endpoint endpoint, long startNanos) {
+        if (measuring) {
+            long micros = Math.min((System.nanoTime() - startNanos) / 1000, MAX_LATENCY_MICROS);
+            latencies.get(endpoint).recordValue(micros);
+        }
+    }
+
+    private void countError(Endpoint endpoint) {
+        if (measuring) {
+            errors.get(endpoint).incrementAndGet();
+        }
+    }
+
+    private void resetMeasurements() {
+        latencies.values().forEach(Histogram::reset);
+        errors.values().forEach(counter -> counter.set(0));
+        bookings.set(0);
+        pooledBookings.set(0);
+    }
+
+    /**
+     * Read the booking meters of the application under test
+     * Meters the server does not expose (older builds, actuator off) read as missing
+     */
+    private ServerSample sampleServer() {
+        ServerSample sample = new ServerSample();
+        for (String name : SERVER_TIMERS) {
+            JsonNode metric = fetchMetric(name, null);
+            if (metric != null) {
+                sample.timers.put(name, new double[]{statistic(metric, "COUNT"), statistic(metric, "TOTAL_TIME")});
+            }
+        }
+        for (String[] counter : SERVER_COUNTERS) {
+            JsonNode metric = fetchMetric(counter[1], counter[2]);
+            if (metric != null) {
+                sample.counters.put(counter[0], statistic(metric, "COUNT"));
+            }
+        }
+        return sample;
+    }
+
+    private JsonNode fetchMetric(String name, String tag) {
+        String url = baseUrl + "/actuator/metrics/" + name + (tag != null ? "?tag=" + tag : "");
+        try {
+            HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(url))
+                    .timeout(Duration.ofSeconds(5)).GET().build(), HttpResponse.BodyHandlers.ofString());
+            return response.statusCode() == 200 ? objectMapper.readTree(response.body()) : null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static double statistic(JsonNode metric, String statistic) {
+        for (JsonNode measurement : metric.path("measurements")) {
+            if (statistic.equals(measurement.path("statistic").asText())) {
+                return measurement.path("value").asDouble();
+            }
+        }
+        return 0;
+    }
+
+    private void report(double elapsedSeconds, int concurrency, ServerSample before, ServerSample after) {
+        Histogram total = new Histogram(MAX_LATENCY_MICROS, 3);
+        System.out.printf("%n%-10s %10s %10s %10s %10s %10s %10s %8s%n",
+                "endpoint", "count", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "errors");
+        for (Endpoint endpoint : Endpoint.values()) {
+            Histogram histogram = latencies.get(endpoint);
+            total.add(histogram);
+            printRow(endpoint.name(), histogram, elapsedSeconds, errors.get(endpoint).get());
+        }
+        long totalErrors = errors.values().stream().mapToLong(AtomicLong::get).sum();
+        printRow("TOTAL", total, elapsedSeconds, totalErrors);
+
+        long booked = bookings.get();
+        System.out.printf("%nClients: %d, measured: %.1f s%n", concurrency, elapsedSeconds);
+        System.out.printf("Bookings: %d, pooled: %d (pooling rate %.1f%%)%n",
+                booked, pooledBookings.get(), booked == 0 ? 0.0 : 100.0 * pooledBookings.get() / booked);
+
+        if (after.counters.isEmpty() && after.timers.isEmpty()) {
+            System.out.println("Server metrics: not available (is /actuator/metrics exposed?)");
+            return;
+        }
+        System.out.printf("Retries: %.0f, optimistic-lock conflicts: %.0f, seat-ledger conflicts: %.0f%n",
+                after.delta(before, "retries"), after.delta(before, "optimistic-lock"), after.delta(before, "seat-ledger"));
+        System.out.printf("Rides dispatched on wait expiry: %.0f%n", after.delta(before, "expired"));
+        System.out.printf("Admission: queued %.0f, degraded to solo %.0f, rejected %.0f%n",
+                after.delta(before, "queued"), after.delta(before, "degraded"), after.delta(before, "rejected"));
+        System.out.println("Server-side mean time per call:");
+        for (String name : SERVER_TIMERS) {
+            double calls = after.timerDelta(before, name, 0);
+            if (calls > 0) {
+                // Timer totals are reported in seconds
+                System.out.printf("  %-40s %10.3f ms  (%.0f calls)%n",
+                        name, after.timerDelta(before, name, 1) / calls * 1000, calls);
+            }
+        }
+    }
+
+    private static void printRow(String name, Histogram histogram, double elapsedSeconds, long errorCount) {
+        System.out.printf("%-10s %10d %10.1f %10.2f %10.2f %10.2f %10.2f %8d%n",
+                name,
+                histogram.getTotalCount(),
+                histogram.getTotalCount() / elapsedSeconds,
+                histogram.getValueAtPercentile(50) / 1000.0,
+                histogram.getValueAtPercentile(99) / 1000.0,
+                histogram.getValueAtPercentile(99.9) / 1000.0,
+                histogram.getMaxValue() / 1000.0,
+                errorCount);
+    }
+
+    private static double gaussian(SplittableRandom random) {
+        // Box-Muller; SplittableRandom has no nextGaussian on Java 17
+        return Math.sqrt(-2 * Math.log(1 - random.nextDouble())) * Math.cos(2 * Math.PI * random.nextDouble());
+    }
+
+    private static double[] offset(double[] origin, double northKm, double eastKm) {
+        return new double[]{
+            origin[0] + northKm / KM_PER_DEGREE,
+            origin[1] + eastKm / (KM_PER_DEGREE * Math.cos(Math.toRadians(origin[0])))
+        };
+    }
+
+    /**
+     * Cumulative server meter values at one point in time
+     */
+    private static final class ServerSample {
+        private final Map<String, double[]> timers = new LinkedHashMap<>(); // name -> {count, total seconds}
+        private final Map<String, Double> counters = new LinkedHashMap<>();
+
+        double delta(ServerSample before, String counter) {
+            return counters.getOrDefault(counter, 0.0) - before.counters.getOrDefault(counter, 0.0);
+        }
+
+        double timerDelta(ServerSample before, String timer, int statistic) {
+            double[] now = timers.get(timer);
+            double[] then = before.timers.get(timer);
+            return now == null ? 0 : now[statistic] - (then == null ? 0 : then[statistic]);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.airport.ridepooling.config;
+
+import com.airport.ridepooling.model.RideStatus;
+import com.airport.ridepooling.service.PartitionedMatchingEngine;
+import com.airport.ridepooling.service.PendingRideIndex;
+import com.airport.ridepooling.service.RideAdmissionControl;
+import com.airport.ridepooling.service.RideDetailsCache;
+import com.airport.ridepooling.service.RideExpiryScheduler;
+import com.airport.ridepooling.service.RideJournal;
+import com.airport.ridepooling.service.RideStatusCounters;
+import com.airport.ridepooling.service.RideUpdatePublisher;
+import com.airport.ridepooling.service.SeatLedger;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Gauges of the ride pool, read from the in-memory structures on scrape
+ * (no database access)
+ */
+@Component
+public class RidePoolGauges implements MeterBinder {
+
+    @Autowired
+    private RideStatusCounters rideStatusCounters;
+
+    @Autowired
+    private PendingRideIndex pendingRideIndex;
+
+    @Autowired
+    private SeatLedger seatLedger;
+
+    @Autowired
+    private PartitionedMatchingEngine matchingEngine;
+
+    @Autowired
+    private RideAdmissionControl rideAdmissionControl;
+
+    @Autowired
+    private RideUpdatePublisher rideUpdatePublisher;
+
+    @Autowired
+    private RideDetailsCache rideDetailsCache;
+
+    @Autowired
+    private RideExpiryScheduler rideExpiryScheduler;
+
+    @Autowired
+    private RideJournal rideJournal;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (RideStatus status : RideStatus.values()) {
+            Gauge.builder("ridepooling.rides", rideStatusCounters, counters -> counters.count(status))
+                    .description("Rides per status")
+                    .tag("status", status.name().toLowerCase(Locale.ROOT))
+                    .register(registry);
+        }
+        Gauge.builder("ridepooling.rides.occupancy", rideStatusCounters, RideStatusCounters::averageOccupancy)
+                .description("Average passengers per open (pending or matched) ride")
+                .register(registry);
+        Gauge.builder("ridepooling.matching.index.size", pendingRideIndex, PendingRideIndex::size)
+                .description("Pending rides in the spatial index (the matching pool)")
+                .register(registry);
+        Gauge.builder("ridepooling.matching.engine.backlog", matchingEngine, PartitionedMatchingEngine::backlog)
+                .description("Ride requests queued in the matching engine's partition rings")
+                .register(registry);
+        Gauge.builder("ridepooling.admission.in-flight", rideAdmissionControl, RideAdmissionControl::inFlight)
+                .description("Ride bookings currently admitted, over all pickup zones")
+                .register(registry);
+        Gauge.builder("ridepooling.expiry.scheduled", rideExpiryScheduler, RideExpiryScheduler::size)
+                .description("Open rides waiting on their expiry deadline")
+                .register(registry);
+        Gauge.builder("ridepooling.journal.live", rideJournal, RideJournal::liveRideCount)
+                .description("Open rides recorded in the ride journal")
+                .register(registry);
+        Gauge.builder("ridepooling.booking.ledger.size", seatLedger, SeatLedger::size)
+                .description("Rides tracked by the seat ledger")
+                .register(registry);
+        Gauge.builder("ridepooling.rides.details.cache.size", rideDetailsCache, RideDetailsCache::size)
+                .description("Rides in the details cache")
+                .register(registry);
+        Gauge.builder("ridepooling.async.subscribers", rideUpdatePublisher, RideUpdatePublisher::subscriberCount)
+                .description("Open server-sent event streams")
+                .register(registry);
+    }
+}
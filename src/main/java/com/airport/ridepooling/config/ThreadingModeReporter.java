@@ -0,0 +1,41 @@
+package com.airport.ridepooling.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports which threading model serves requests
+ *
+ * spring.threads.virtual.enabled=true (the virtual-threads profile) switches Tomcat
+ * and the application task executor to virtual threads, but Spring Boot silently
+ * ignores it below Java 21 - warn instead of running on platform threads unnoticed.
+ */
+@Component
+@Slf4j
+public class ThreadingModeReporter {
+
+    private static final int VIRTUAL_THREADS_JAVA_VERSION = 21;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsRequested;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connectionPoolSize;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void report() {
+        int javaVersion = Runtime.version().feature();
+
+        if (!virtualThreadsRequested) {
+            log.info("Serving requests on platform threads (JDBC pool size {})", connectionPoolSize);
+        } else if (javaVersion < VIRTUAL_THREADS_JAVA_VERSION) {
+            log.warn("Virtual threads requested but running on Java {}; falling back to platform threads "
+                    + "(build and run with Java {}+, see the jdk21 Maven profile)", javaVersion, VIRTUAL_THREADS_JAVA_VERSION);
+        } else {
+            log.info("Serving requests on virtual threads (JDBC pool size {})", connectionPoolSize);
+        }
+    }
+}
@@ -3,18 +3,28 @@ package com.airport.ridepooling.controller;
 import com.airport.ridepooling.dto.RideDetailsDTO;
 import com.airport.ridepooling.dto.RideRequestDTO;
 import com.airport.ridepooling.dto.RideResponseDTO;
+import com.airport.ridepooling.dto.RideTicketDTO;
+import com.airport.ridepooling.service.AsyncRideService;
 import com.airport.ridepooling.service.PricingService;
 import com.airport.ridepooling.service.RideService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.net.URI;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -33,6 +43,11 @@ public class RideController {
     @Autowired
     private PricingService pricingService;
     
+    @Autowired
+    private AsyncRideService asyncRideService;
+    
+    private static final int MAX_GROUP_SIZE = 500;
+    
     /**
      * Request a new ride
      * Automatically matches with existing rides if suitable match found
@@ -52,23 +67,134 @@ public class RideController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
     
+    /**
+     * Request rides for a group of passengers (e.g. one flight)
+     * The group is matched together and persisted in one transaction
+     * 
+     * POST /api/rides/request/batch
+     */
+    @PostMapping("/request/batch")
+    @Operation(summary = "Request rides for a group", 
+               description = "Create ride requests for a group of passengers at once. The group is matched against pending rides and against each other; one response per request, in order.")
+    public ResponseEntity<List<RideResponseDTO>> requestRides(
+            @RequestBody @NotEmpty @Size(max = MAX_GROUP_SIZE) List<@Valid RideRequestDTO> requests) {
+        
+        log.info("Received group ride request for {} passengers", requests.size());
+        
+        List<RideResponseDTO> responses = rideService.requestRides(requests);
+        
+        return ResponseEntity.status(HttpStatus.CREATED).body(responses);
+    }
+    
+    /**
+     * Request a new ride asynchronously
+     * Returns a ticket immediately; matching runs in the background
+     * 
+     * POST /api/rides/request/async
+     */
+    @PostMapping("/request/async")
+    @Operation(summary = "Request a ride asynchronously", 
+               description = "Accept a ride request and return a ticket right away. Follow the ticket's events URL (server-sent events) for the booking result and later ride updates.")
+    public ResponseEntity<RideTicketDTO> requestRideAsync(
+            @Valid @RequestBody RideRequestDTO request) {
+        
+        log.info("Received async ride request from {}", request.getName());
+        
+        RideTicketDTO ticket = asyncRideService.submit(request);
+        
+        return ResponseEntity.accepted()
+                .location(URI.create(ticket.getStatusUrl()))
+                .body(ticket);
+    }
+    
+    /**
+     * Get the state of an asynchronous ride request
+     * 
+     * GET /api/rides/tickets/{ticketId}
+     */
+    @GetMapping("/tickets/{ticketId}")
+    @Operation(summary = "Get ride request ticket", 
+               description = "Retrieve the status and, once booked, the result of an asynchronous ride request")
+    public ResponseEntity<RideTicketDTO> getTicket(
+            @Parameter(description = "ID of the ticket to retrieve")
+            @PathVariable String ticketId) {
+        
+        return ResponseEntity.ok(asyncRideService.getTicket(ticketId));
+    }
+    
+    /**
+     * Stream the result of an asynchronous ride request, then updates of the booked ride
+     * 
+     * GET /api/rides/tickets/{ticketId}/events
+     */
+    @GetMapping(value = "/tickets/{ticketId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream ride request ticket", 
+               description = "Server-sent events: one 'ticket' event with the booking result, then 'ride-update' events for the booked passenger")
+    public SseEmitter streamTicket(
+            @Parameter(description = "ID of the ticket to stream")
+            @PathVariable String ticketId) {
+        
+        return asyncRideService.streamTicket(ticketId);
+    }
+    
+    /**
+     * Stream updates of a ride (joins, cancellations, fare and status changes)
+     * 
+     * GET /api/rides/{rideId}/events
+     */
+    @GetMapping(value = "/{rideId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream ride updates", 
+               description = "Server-sent 'ride-update' events whenever the ride changes")
+    public SseEmitter streamRide(
+            @Parameter(description = "ID of the ride to stream")
+            @PathVariable Long rideId) {
+        
+        return asyncRideService.streamRide(rideId);
+    }
+    
+    /**
+     * Stream updates of the ride a passenger is on
+     * 
+     * GET /api/rides/passenger/{passengerId}/events
+     */
+    @GetMapping(value = "/passenger/{passengerId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream passenger ride updates", 
+               description = "Server-sent 'ride-update' events whenever the passenger's ride changes")
+    public SseEmitter streamPassenger(
+            @Parameter(description = "ID of the passenger to stream")
+            @PathVariable Long passengerId) {
+        
+        return asyncRideService.streamPassenger(passengerId);
+    }
+    
     /**
      * Get ride details by ID
+     * Conditional: the ETag is derived from the ride version, so a client polling
+     * an unchanged ride with If-None-Match gets 304 Not Modified and no body
      * 
      * GET /api/rides/{rideId}
      */
     @GetMapping("/{rideId}")
     @Operation(summary = "Get ride details", 
-               description = "Retrieve detailed information about a specific ride including all passengers")
+               description = "Retrieve detailed information about a specific ride including all passengers. " +
+                             "Supports If-None-Match with the returned ETag (304 when the ride is unchanged).")
     public ResponseEntity<RideDetailsDTO> getRide(
             @Parameter(description = "ID of the ride to retrieve")
-            @PathVariable Long rideId) {
+            @PathVariable Long rideId,
+            WebRequest webRequest) {
+        
+        String currentETag = rideETag(rideId, rideService.getRideVersion(rideId));
+        if (matchesIfNoneMatch(webRequest, currentETag)) {
+            log.debug("Ride {} not modified", rideId);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(currentETag).build();
+        }
         
         log.info("Fetching details for ride {}", rideId);
         
-        RideDetailsDTO details = rideService.getRideDetails(rideId);
+        // Tag the body with the version it was built at, which may be newer than the one checked above
+        RideService.VersionedRideDetails details = rideService.getVersionedRideDetails(rideId);
         
-        return ResponseEntity.ok(details);
+        return ResponseEntity.ok().eTag(rideETag(rideId, details.version())).body(details.details());
     }
     
     /**
@@ -124,4 +250,33 @@ public class RideController {
             "timestamp", java.time.LocalDateTime.now().toString()
         ));
     }
+    
+    /**
+     * Strong ETag of a ride version; changes on every committed ride change
+     */
+    private static String rideETag(Long rideId, Long version) {
+        return "\"ride-" + rideId + "-v" + version + "\"";
+    }
+    
+    /**
+     * Whether the request's If-None-Match lists the given ETag (weak comparison) or "*"
+     */
+    private static boolean matchesIfNoneMatch(WebRequest webRequest, String eTag) {
+        String[] headers = webRequest.getHeaderValues(HttpHeaders.IF_NONE_MATCH);
+        if (headers == null) {
+            return false;
+        }
+        for (String header : headers) {
+            for (String candidate : header.split(",")) {
+                String tag = candidate.trim();
+                if (tag.startsWith("W/")) {
+                    tag = tag.substring(2);
+                }
+                if (tag.equals("*") || tag.equals(eTag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
 }
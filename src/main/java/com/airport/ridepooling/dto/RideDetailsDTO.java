@@ -27,6 +27,8 @@ public class RideDetailsDTO {
     private Double totalDistance;
     private Double finalFare;
     private LocalDateTime createdAt;
+    private LocalDateTime scheduledTime; // Departure window start
+    private LocalDateTime scheduledUntil; // Departure window end
     
     @Data
     @NoArgsConstructor
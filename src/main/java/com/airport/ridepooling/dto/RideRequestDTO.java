@@ -1,6 +1,7 @@
 package com.airport.ridepooling.dto;
 
 import com.airport.ridepooling.model.Location;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -8,6 +9,8 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDateTime;
+
 /**
  * Request DTO for creating a new ride request
  */
@@ -33,4 +36,21 @@ public class RideRequestDTO {
     
     @Min(value = 1, message = "Max detour must be at least 1 minute")
     private Integer maxDetourMinutes = 15;
+    
+    // Desired pickup window: [pickupTime, pickupTime + pickupWindowMinutes]
+    // pickupTime defaults to now (pre-bookings for arriving flights set it ahead);
+    // pickupWindowMinutes defaults to ridepooling.matching.pickup-window-minutes
+    private LocalDateTime pickupTime;
+    
+    @Min(value = 1, message = "Pickup window must be at least 1 minute")
+    @Max(value = 120, message = "Pickup window cannot exceed 120 minutes")
+    private Integer pickupWindowMinutes;
+    
+    /**
+     * Request for an immediate pickup with the default window
+     */
+    public RideRequestDTO(String name, String phone, Location pickupLocation, Location dropoffLocation,
+                          Integer luggageCount, Integer maxDetourMinutes) {
+        this(name, phone, pickupLocation, dropoffLocation, luggageCount, maxDetourMinutes, null, null);
+    }
 }
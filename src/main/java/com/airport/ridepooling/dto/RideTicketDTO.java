@@ -0,0 +1,34 @@
+package com.airport.ridepooling.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ticket returned for an asynchronous ride request
+ * Poll it via statusUrl or follow eventsUrl (server-sent events)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RideTicketDTO {
+    
+    private String ticketId;
+    private Status status;
+    private RideResponseDTO result; // Set once the request is booked
+    private String error; // Set if the request failed
+    private String statusUrl;
+    private String eventsUrl;
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+    
+    public enum Status {
+        PENDING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,39 @@
+package com.airport.ridepooling.dto;
+
+import com.airport.ridepooling.model.RideStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Ride change pushed to server-sent event subscribers
+ * Sent after the change is committed; rideVersion orders updates of the same ride
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RideUpdateDTO {
+    
+    private Type type;
+    private Long rideId;
+    private Long rideVersion;
+    private Long passengerId; // Passenger who triggered the change, if any
+    private RideStatus status;
+    private List<Long> passengerIds;
+    private Integer availableSeats;
+    private Double totalDistance;
+    private Double finalFare;
+    private LocalDateTime timestamp;
+    
+    public enum Type {
+        RIDE_CREATED,
+        PASSENGER_JOINED,
+        PASSENGER_CANCELLED,
+        STATUS_CHANGED
+    }
+}
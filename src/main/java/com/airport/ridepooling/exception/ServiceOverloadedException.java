@@ -0,0 +1,19 @@
+package com.airport.ridepooling.exception;
+
+/**
+ * Exception thrown when a request is shed because the service is overloaded
+ * Carries how long the client should wait before trying again
+ */
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
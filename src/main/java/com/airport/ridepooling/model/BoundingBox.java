@@ -0,0 +1,32 @@
+package com.airport.ridepooling.model;
+
+/**
+ * Lat/lon rectangle enclosing a circle of a given radius
+ * Used to prefilter candidates (grid cells, SQL range predicates)
+ * before any exact distance check
+ */
+public record BoundingBox(double minLatitude, double maxLatitude,
+                          double minLongitude, double maxLongitude) {
+
+    private static final double KM_PER_DEGREE = 111.32;
+
+    /**
+     * Build the box enclosing all points within radiusKm of the center
+     * @param center Center of the search
+     * @param radiusKm Search radius in kilometers
+     */
+    public static BoundingBox around(Location center, double radiusKm) {
+        double latitudeSpan = radiusKm / KM_PER_DEGREE;
+
+        // Longitude degrees shrink with cos(latitude); clamp to stay finite near the poles
+        double cosLatitude = Math.max(Math.cos(Math.toRadians(center.getLatitude())), 0.01);
+        double longitudeSpan = radiusKm / (KM_PER_DEGREE * cosLatitude);
+
+        return new BoundingBox(
+                center.getLatitude() - latitudeSpan,
+                center.getLatitude() + latitudeSpan,
+                center.getLongitude() - longitudeSpan,
+                center.getLongitude() + longitudeSpan
+        );
+    }
+}
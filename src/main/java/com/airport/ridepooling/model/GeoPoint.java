@@ -0,0 +1,79 @@
+package com.airport.ridepooling.model;
+
+/**
+ * Compact, immutable coordinate used on the matching hot path
+ * Caches radians and cos(latitude) so repeated distance checks skip the trig setup
+ *
+ * Two distance flavours:
+ * - distanceKm: exact Haversine (asin form, no atan2)
+ * - approxDistanceKm: equirectangular projection, error well below 0.1% at city scale,
+ *   used for radius pruning and ranking
+ */
+public final class GeoPoint {
+
+    public static final double EARTH_RADIUS_KM = 6371.0;
+
+    private final double latitude;
+    private final double longitude;
+    private final double latitudeRadians;
+    private final double longitudeRadians;
+    private final double cosLatitude;
+
+    public GeoPoint(double latitude, double longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.latitudeRadians = Math.toRadians(latitude);
+        this.longitudeRadians = Math.toRadians(longitude);
+        this.cosLatitude = Math.cos(latitudeRadians);
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    /**
+     * Exact great-circle distance using the Haversine formula
+     * Time Complexity: O(1) - two sin, one sqrt, one asin
+     * @return Distance in kilometers
+     */
+    public double distanceKm(GeoPoint other) {
+        double sinHalfLat = Math.sin((other.latitudeRadians - latitudeRadians) * 0.5);
+        double sinHalfLon = Math.sin((other.longitudeRadians - longitudeRadians) * 0.5);
+
+        double a = sinHalfLat * sinHalfLat + cosLatitude * other.cosLatitude * sinHalfLon * sinHalfLon;
+
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * Approximate distance using the equirectangular projection
+     * Time Complexity: O(1) - one sqrt, no trig
+     * @return Distance in kilometers
+     */
+    public double approxDistanceKm(GeoPoint other) {
+        return EARTH_RADIUS_KM * Math.sqrt(approxAngleSquared(other));
+    }
+
+    /**
+     * Squared approximate distance, for comparisons that do not need the root
+     * @return Squared distance in km²
+     */
+    public double approxDistanceSquaredKm(GeoPoint other) {
+        return EARTH_RADIUS_KM * EARTH_RADIUS_KM * approxAngleSquared(other);
+    }
+
+    private double approxAngleSquared(GeoPoint other) {
+        double x = (other.longitudeRadians - longitudeRadians) * 0.5 * (cosLatitude + other.cosLatitude);
+        double y = other.latitudeRadians - latitudeRadians;
+        return x * x + y * y;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("(%.4f, %.4f)", latitude, longitude);
+    }
+}
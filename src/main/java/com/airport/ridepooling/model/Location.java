@@ -1,23 +1,59 @@
 package com.airport.ridepooling.model;
 
 import jakarta.persistence.Embeddable;
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
 
 /**
  * Represents a geographic location with latitude and longitude
  * Includes Haversine formula for distance calculation
+ * 
+ * Radians and cos(latitude) are cached in a GeoPoint on first use,
+ * so repeated distance checks against the same location skip the trig setup
  */
 @Embeddable
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class Location {
     
     private Double latitude;
     private Double longitude;
     
+    // Lazily built matching-side twin; transient so JPA and equals/hashCode ignore it
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient GeoPoint geoPoint;
+    
+    public Location(Double latitude, Double longitude) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+    
+    public void setLatitude(Double latitude) {
+        this.latitude = latitude;
+        this.geoPoint = null;
+    }
+    
+    public void setLongitude(Double longitude) {
+        this.longitude = longitude;
+        this.geoPoint = null;
+    }
+    
+    /**
+     * Get the cached matching-side representation of this location
+     */
+    public GeoPoint toGeoPoint() {
+        GeoPoint point = geoPoint;
+        if (point == null) {
+            point = new GeoPoint(latitude, longitude);
+            geoPoint = point;
+        }
+        return point;
+    }
+    
     /**
      * Calculate distance to another location using Haversine formula
      * Time Complexity: O(1)
@@ -29,19 +65,21 @@ public class Location {
             return Double.MAX_VALUE;
         }
         
-        final double EARTH_RADIUS_KM = 6371.0;
-        
-        double dLat = Math.toRadians(other.latitude - this.latitude);
-        double dLon = Math.toRadians(other.longitude - this.longitude);
-        
-        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
-                   Math.cos(Math.toRadians(this.latitude)) * 
-                   Math.cos(Math.toRadians(other.latitude)) *
-                   Math.sin(dLon / 2) * Math.sin(dLon / 2);
-        
-        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return toGeoPoint().distanceKm(other.toGeoPoint());
+    }
+    
+    /**
+     * Approximate distance using the equirectangular projection
+     * Accurate to well below 0.1% at city scale - use for pruning and ranking
+     * @param other The target location
+     * @return Distance in kilometers
+     */
+    public double approxDistanceTo(Location other) {
+        if (other == null) {
+            return Double.MAX_VALUE;
+        }
         
-        return EARTH_RADIUS_KM * c;
+        return toGeoPoint().approxDistanceKm(other.toGeoPoint());
     }
     
     /**
@@ -18,10 +18,15 @@ import java.time.LocalDateTime;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class Passenger {
+public class Passenger implements Trip {
     
+    /**
+     * Pooled sequence: ids are handed out in memory, one sequence call per 50 rows,
+     * so inserts wait for the flush and are sent as JDBC batches
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "passenger_seq")
+    @SequenceGenerator(name = "passenger_seq", sequenceName = "passenger_seq", allocationSize = 50)
     private Long id;
     
     @NotNull
@@ -52,6 +57,11 @@ public class Passenger {
     @Column(nullable = false)
     private Integer maxDetourMinutes = 15; // Maximum acceptable detour time
     
+    // Pickup window: the passenger can be picked up any time in [earliestPickup, latestPickup]
+    private LocalDateTime earliestPickup;
+    
+    private LocalDateTime latestPickup;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "ride_id")
     @JsonBackReference
@@ -72,6 +82,15 @@ public class Passenger {
         requestedAt = LocalDateTime.now();
     }
     
+    /**
+     * Check if the passenger's pickup window overlaps the given one
+     * A missing bound on either side (older bookings) never excludes anything
+     */
+    public boolean isPickupWindowOverlapping(LocalDateTime earliest, LocalDateTime latest) {
+        return (earliestPickup == null || latest == null || !earliestPickup.isAfter(latest))
+                && (latestPickup == null || earliest == null || !latestPickup.isBefore(earliest));
+    }
+    
     /**
      * Calculate the direct distance for this passenger's trip
      */
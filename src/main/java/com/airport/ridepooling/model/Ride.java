@@ -17,15 +17,21 @@ import java.util.List;
 @Entity
 @Table(name = "rides", indexes = {
     @Index(name = "idx_ride_status", columnList = "status"),
-    @Index(name = "idx_ride_created_at", columnList = "created_at")
+    @Index(name = "idx_ride_created_at", columnList = "created_at"),
+    @Index(name = "idx_ride_status_anchor", columnList = "status, anchor_lat, anchor_lon")
 })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Ride {
     
+    /**
+     * Pooled sequence: ids are handed out in memory, one sequence call per 50 rows,
+     * so inserts wait for the flush and are sent as JDBC batches
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ride_seq")
+    @SequenceGenerator(name = "ride_seq", sequenceName = "ride_seq", allocationSize = 50)
     private Long id;
     
     @Enumerated(EnumType.STRING)
@@ -49,6 +55,13 @@ public class Ride {
     @Column(nullable = false)
     private Integer availableLuggage = 6;
     
+    // Denormalized primary pickup, so matching can range-filter rides in SQL
+    @Column(name = "anchor_lat")
+    private Double anchorLatitude;
+    
+    @Column(name = "anchor_lon")
+    private Double anchorLongitude;
+    
     // Pricing and distance
     private Double totalDistance; // Total route distance in km
     private Double baseFare; // Base fare before surge/discounts
@@ -57,7 +70,13 @@ public class Ride {
     @Column(nullable = false)
     private LocalDateTime createdAt;
     
-    private LocalDateTime scheduledTime; // When the ride should start
+    /**
+     * Departure window: intersection of the pickup windows of everyone on board
+     * (scheduledTime is the earliest start, scheduledUntil the latest)
+     */
+    private LocalDateTime scheduledTime;
+    
+    private LocalDateTime scheduledUntil;
     
     /**
      * Version field for optimistic locking
@@ -96,6 +115,8 @@ public class Ride {
         passenger.setRide(this);
         availableSeats--;
         availableLuggage -= passenger.getLuggageCount();
+        refreshAnchor();
+        refreshSchedule();
     }
     
     /**
@@ -108,7 +129,40 @@ public class Ride {
             passenger.setRide(null);
             availableSeats++;
             availableLuggage += passenger.getLuggageCount();
+            refreshAnchor();
+            refreshSchedule();
+        }
+    }
+    
+    /**
+     * Keep the anchor columns on the primary passenger's pickup
+     */
+    private void refreshAnchor() {
+        Passenger primaryPassenger = getPrimaryPassenger();
+        Location anchor = primaryPassenger != null ? primaryPassenger.getPickupLocation() : null;
+        anchorLatitude = anchor != null ? anchor.getLatitude() : null;
+        anchorLongitude = anchor != null ? anchor.getLongitude() : null;
+    }
+    
+    /**
+     * Narrow the departure window to what every passenger on board accepts
+     * Passengers without a pickup window do not constrain it
+     */
+    private void refreshSchedule() {
+        LocalDateTime start = null;
+        LocalDateTime end = null;
+        for (Passenger passenger : passengers) {
+            LocalDateTime earliest = passenger.getEarliestPickup();
+            LocalDateTime latest = passenger.getLatestPickup();
+            if (earliest != null && (start == null || earliest.isAfter(start))) {
+                start = earliest;
+            }
+            if (latest != null && (end == null || latest.isBefore(end))) {
+                end = latest;
+            }
         }
+        scheduledTime = start;
+        scheduledUntil = end;
     }
     
     /**
@@ -0,0 +1,85 @@
+package com.airport.ridepooling.model;
+
+import com.airport.ridepooling.repository.RideTripRow;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Read-only view of a ride for the matcher
+ * Holds only what matching needs - capacity, departure window, version and the trips on board -
+ * and is loaded with one joined projection query instead of hydrating Ride and
+ * Passenger entities (no persistence-context entries, no dirty-checking snapshots).
+ * The managed Ride is loaded only for the ride actually being booked, and the
+ * version is compared there to detect a snapshot gone stale.
+ *
+ * @param trips Trips in booking order; the first one is the primary passenger
+ */
+public record RideSnapshot(Long id, Long version, RideStatus status,
+                           int availableSeats, int availableLuggage,
+                           LocalDateTime scheduledTime, LocalDateTime scheduledUntil,
+                           List<TripSnapshot> trips) {
+
+    /**
+     * Snapshot of a ride entity (e.g. one opened earlier in the same batch)
+     */
+    public static RideSnapshot of(Ride ride) {
+        return new RideSnapshot(ride.getId(), ride.getVersion(), ride.getStatus(),
+                ride.getAvailableSeats(), ride.getAvailableLuggage(),
+                ride.getScheduledTime(), ride.getScheduledUntil(),
+                ride.getPassengers().stream().map(TripSnapshot::of).toList());
+    }
+
+    /**
+     * Group joined ride/passenger rows into snapshots
+     * Rows must be ordered by ride, then by booking order
+     */
+    public static List<RideSnapshot> fromRows(List<RideTripRow> rows) {
+        List<RideSnapshot> snapshots = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= rows.size(); i++) {
+            if (i == rows.size() || !Objects.equals(rows.get(i).rideId(), rows.get(start).rideId())) {
+                snapshots.add(fromRowsOfOneRide(rows.subList(start, i)));
+                start = i;
+            }
+        }
+        return snapshots;
+    }
+
+    private static RideSnapshot fromRowsOfOneRide(List<RideTripRow> rows) {
+        RideTripRow first = rows.get(0);
+        List<TripSnapshot> trips = new ArrayList<>(rows.size());
+        for (RideTripRow row : rows) {
+            trips.add(TripSnapshot.of(row.passengerId(),
+                    new Location(row.pickupLatitude(), row.pickupLongitude()),
+                    new Location(row.dropoffLatitude(), row.dropoffLongitude()),
+                    row.luggageCount(), row.maxDetourMinutes()));
+        }
+        return new RideSnapshot(first.rideId(), first.rideVersion(), first.status(),
+                first.availableSeats(), first.availableLuggage(),
+                first.scheduledTime(), first.scheduledUntil(), List.copyOf(trips));
+    }
+
+    /**
+     * Trip of the first passenger to book, or null for an empty ride
+     */
+    public TripSnapshot primaryTrip() {
+        return trips.isEmpty() ? null : trips.get(0);
+    }
+
+    /**
+     * Check if the ride has room for a passenger with the given luggage
+     */
+    public boolean canAccommodate(int luggage) {
+        return availableSeats >= 1 && availableLuggage >= luggage;
+    }
+    
+    /**
+     * Check if the ride's departure window overlaps the passenger's pickup window
+     */
+    public boolean canPickUp(Passenger passenger) {
+        return passenger.isPickupWindowOverlapping(scheduledTime, scheduledUntil);
+    }
+}
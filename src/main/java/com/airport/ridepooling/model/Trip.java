@@ -0,0 +1,27 @@
+package com.airport.ridepooling.model;
+
+/**
+ * One passenger's trip as matching and route planning see it
+ * Implemented by the Passenger entity and by the read-only TripSnapshot,
+ * so the planner works the same on managed entities and on the matching read model
+ */
+public interface Trip {
+
+    /**
+     * Passenger id, or null for a passenger not yet persisted
+     */
+    Long getId();
+
+    Location getPickupLocation();
+
+    Location getDropoffLocation();
+
+    Integer getLuggageCount();
+
+    Integer getMaxDetourMinutes();
+
+    /**
+     * Direct (Haversine) distance of the trip in kilometers
+     */
+    double getDirectDistance();
+}
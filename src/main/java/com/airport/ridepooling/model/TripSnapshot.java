@@ -0,0 +1,30 @@
+package com.airport.ridepooling.model;
+
+import lombok.Value;
+
+/**
+ * Immutable trip of a passenger already on a pending ride
+ * Part of the matching read model (see RideSnapshot); the direct distance is
+ * computed once when the snapshot is built
+ */
+@Value
+public class TripSnapshot implements Trip {
+
+    Long id;
+    Location pickupLocation;
+    Location dropoffLocation;
+    Integer luggageCount;
+    Integer maxDetourMinutes;
+    double directDistance;
+
+    public static TripSnapshot of(Long passengerId, Location pickup, Location dropoff,
+                                  int luggageCount, int maxDetourMinutes) {
+        return new TripSnapshot(passengerId, pickup, dropoff, luggageCount, maxDetourMinutes,
+                pickup.distanceTo(dropoff));
+    }
+
+    public static TripSnapshot of(Passenger passenger) {
+        return of(passenger.getId(), passenger.getPickupLocation(), passenger.getDropoffLocation(),
+                passenger.getLuggageCount(), passenger.getMaxDetourMinutes());
+    }
+}
@@ -1,12 +1,16 @@
 package com.airport.ridepooling.repository;
 
 import com.airport.ridepooling.model.Ride;
+import com.airport.ridepooling.model.RideSnapshot;
 import com.airport.ridepooling.model.RideStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository for Ride entity
@@ -15,6 +19,12 @@ import java.util.List;
 @Repository
 public interface RideRepository extends JpaRepository<Ride, Long> {
     
+    String TRIP_ROW_COLUMNS = "r.id, r.version, r.status, r.availableSeats, r.availableLuggage, " +
+            "r.scheduledTime, r.scheduledUntil, p.id, " +
+            "p.pickupLocation.latitude, p.pickupLocation.longitude, " +
+            "p.dropoffLocation.latitude, p.dropoffLocation.longitude, " +
+            "p.luggageCount, p.maxDetourMinutes";
+    
     /**
      * Find all rides with a specific status
      * Used for matching algorithm to find available rides
@@ -29,15 +39,105 @@ public interface RideRepository extends JpaRepository<Ride, Long> {
     @Query("SELECT r FROM Ride r WHERE r.status = :status AND r.availableSeats > 0")
     List<Ride> findAvailableRidesByStatus(RideStatus status);
     
+    /**
+     * Current optimistic lock version of a ride, without loading the ride or its passengers
+     */
+    @Query("SELECT r.version FROM Ride r WHERE r.id = :rideId")
+    Optional<Long> findVersionById(Long rideId);
+    
+    /**
+     * Matching read model of the given rides: one row per ride and passenger,
+     * ordered by ride and booking order (see RideSnapshot.fromRows)
+     */
+    @Query("SELECT new com.airport.ridepooling.repository.RideTripRow(" + TRIP_ROW_COLUMNS + ") " +
+           "FROM Ride r JOIN r.passengers p WHERE r.id IN :rideIds ORDER BY r.id, p.id")
+    List<RideTripRow> findTripRowsByRideIds(Collection<Long> rideIds);
+    
+    /**
+     * Matching read model of the rides anchored inside a lat/lon bounding box
+     * that can still take a passenger with the given luggage and whose departure
+     * window overlaps [earliest, latest] (null bounds and unscheduled rides match any window)
+     * Range predicates hit idx_ride_status_anchor, so only nearby rows are read
+     */
+    @Query("SELECT new com.airport.ridepooling.repository.RideTripRow(" + TRIP_ROW_COLUMNS + ") " +
+           "FROM Ride r JOIN r.passengers p WHERE r.status = :status " +
+           "AND r.availableSeats > 0 AND r.availableLuggage >= :luggage " +
+           "AND r.anchorLatitude BETWEEN :minLat AND :maxLat " +
+           "AND r.anchorLongitude BETWEEN :minLon AND :maxLon " +
+           "AND (r.scheduledTime IS NULL OR :latest IS NULL OR r.scheduledTime <= :latest) " +
+           "AND (r.scheduledUntil IS NULL OR :earliest IS NULL OR r.scheduledUntil >= :earliest) " +
+           "ORDER BY r.id, p.id")
+    List<RideTripRow> findCandidateTripRows(RideStatus status, int luggage,
+                                            double minLat, double maxLat,
+                                            double minLon, double maxLon,
+                                            LocalDateTime earliest, LocalDateTime latest);
+    
+    /**
+     * Read-only snapshots of the given rides for matching (no managed entities)
+     */
+    default List<RideSnapshot> findSnapshotsById(Collection<Long> rideIds) {
+        return RideSnapshot.fromRows(findTripRowsByRideIds(rideIds));
+    }
+    
+    /**
+     * Read-only snapshots of nearby rides with room for the luggage, departing
+     * within the pickup window, for matching
+     */
+    default List<RideSnapshot> findCandidateSnapshots(RideStatus status, int luggage,
+                                                      double minLat, double maxLat,
+                                                      double minLon, double maxLon,
+                                                      LocalDateTime earliest, LocalDateTime latest) {
+        return RideSnapshot.fromRows(findCandidateTripRows(status, luggage,
+                minLat, maxLat, minLon, maxLon, earliest, latest));
+    }
+    
     /**
      * Count rides by status
      * Used for surge pricing calculation
      */
     long countByStatus(RideStatus status);
     
+    /**
+     * Count rides and seated passengers per status in one query
+     * Used to reconcile the in-memory demand and occupancy counters
+     */
+    @Query("SELECT r.status AS status, COUNT(r) AS count, " +
+           "COALESCE(SUM(r.maxSeats - r.availableSeats), 0) AS seated " +
+           "FROM Ride r GROUP BY r.status")
+    List<StatusCount> countGroupedByStatus();
+    
     /**
      * Find recent rides (for analytics/monitoring)
      */
     @Query("SELECT r FROM Ride r WHERE r.status = :status ORDER BY r.createdAt DESC")
     List<Ride> findRecentRidesByStatus(RideStatus status);
+    
+    /**
+     * Ids, creation times and departure windows of the rides in the given statuses
+     * (no passengers loaded)
+     * Used to rebuild the ride expiry wheel on startup
+     */
+    @Query("SELECT r.id AS id, r.createdAt AS createdAt, " +
+           "r.scheduledTime AS scheduledTime, r.scheduledUntil AS scheduledUntil " +
+           "FROM Ride r WHERE r.status IN :statuses")
+    List<RideSchedule> findSchedulesByStatusIn(Collection<RideStatus> statuses);
+    
+    /**
+     * Ride and seated passenger count for one status
+     */
+    interface StatusCount {
+        RideStatus getStatus();
+        long getCount();
+        long getSeated();
+    }
+    
+    /**
+     * Ride id, creation time and departure window
+     */
+    interface RideSchedule {
+        Long getId();
+        LocalDateTime getCreatedAt();
+        LocalDateTime getScheduledTime();
+        LocalDateTime getScheduledUntil();
+    }
 }
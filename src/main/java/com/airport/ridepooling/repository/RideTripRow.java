@@ -0,0 +1,17 @@
+package com.airport.ridepooling.repository;
+
+import com.airport.ridepooling.model.RideStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of the matching read-model query: a ride joined with one of its passengers
+ * Grouped into RideSnapshot records (see RideSnapshot.fromRows)
+ */
+public record RideTripRow(Long rideId, Long rideVersion, RideStatus status,
+                          Integer availableSeats, Integer availableLuggage,
+                          LocalDateTime scheduledTime, LocalDateTime scheduledUntil,
+                          Long passengerId,
+                          Double pickupLatitude, Double pickupLongitude,
+                          Double dropoffLatitude, Double dropoffLongitude,
+                          Integer luggageCount, Integer maxDetourMinutes) {}
@@ -0,0 +1,194 @@
+package com.airport.ridepooling.service;
+
+import com.airport.ridepooling.dto.RideRequestDTO;
+import com.airport.ridepooling.dto.RideResponseDTO;
+import com.airport.ridepooling.dto.RideTicketDTO;
+import com.airport.ridepooling.exception.ResourceNotFoundException;
+import com.airport.ridepooling.repository.PassengerRepository;
+import com.airport.ridepooling.repository.RideRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Asynchronous ride requests
+ * A request is accepted immediately with a ticket and booked in the background;
+ * the outcome and later ride changes are pushed over server-sent events
+ * instead of being polled
+ */
+@Service
+@Slf4j
+public class AsyncRideService {
+
+    public static final String TICKET_EVENT = "ticket";
+
+    @Autowired
+    private RideService rideService;
+
+    @Autowired
+    private RideUpdatePublisher rideUpdatePublisher;
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private PassengerRepository passengerRepository;
+
+    @Value("${ridepooling.async.ticket-ttl-seconds:600}")
+    private long ticketTtlSeconds = 600;
+
+    private final Map<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+    /**
+     * Accept a ride request and book it in the background
+     * @return Ticket in PENDING state
+     */
+    public RideTicketDTO submit(RideRequestDTO request) {
+        Ticket ticket = new Ticket(UUID.randomUUID().toString());
+        tickets.put(ticket.id, ticket);
+
+        log.info("Accepted async ride request from {} as ticket {}", request.getName(), ticket.id);
+
+        rideService.requestRideAsync(request).whenComplete((response, failure) -> complete(ticket, response, failure));
+        return ticket.toDTO();
+    }
+
+    /**
+     * Current state of a ticket
+     */
+    public RideTicketDTO getTicket(String ticketId) {
+        return findTicket(ticketId).toDTO();
+    }
+
+    /**
+     * Stream a ticket: one "ticket" event with the booking outcome, then
+     * ride updates for the booked passenger on the same connection
+     */
+    public SseEmitter streamTicket(String ticketId) {
+        Ticket ticket = findTicket(ticketId);
+        SseEmitter emitter = rideUpdatePublisher.newEmitter();
+
+        synchronized (ticket) {
+            if (ticket.status == RideTicketDTO.Status.PENDING) {
+                rideUpdatePublisher.register(RideUpdatePublisher.ticketTopic(ticketId), emitter);
+                return emitter;
+            }
+        }
+        deliver(ticket, List.of(emitter));
+        return emitter;
+    }
+
+    /**
+     * Stream updates of one ride
+     */
+    public SseEmitter streamRide(Long rideId) {
+        if (!rideRepository.existsById(rideId)) {
+            throw new ResourceNotFoundException("Ride not found with id: " + rideId);
+        }
+        return rideUpdatePublisher.subscribe(RideUpdatePublisher.rideTopic(rideId));
+    }
+
+    /**
+     * Stream updates of whichever ride a passenger is on
+     */
+    public SseEmitter streamPassenger(Long passengerId) {
+        if (!passengerRepository.existsById(passengerId)) {
+            throw new ResourceNotFoundException("Passenger not found with id: " + passengerId);
+        }
+        return rideUpdatePublisher.subscribe(RideUpdatePublisher.passengerTopic(passengerId));
+    }
+
+    /**
+     * Forget finished tickets once their time-to-live has passed
+     */
+    @Scheduled(fixedDelayString = "${ridepooling.async.ticket-cleanup-interval-ms:60000}")
+    public void evictExpiredTickets() {
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(ticketTtlSeconds);
+        tickets.values().removeIf(ticket -> ticket.completedAt != null && ticket.completedAt.isBefore(cutoff));
+    }
+
+    private void complete(Ticket ticket, RideResponseDTO response, Throwable failure) {
+        List<SseEmitter> waiting;
+        synchronized (ticket) {
+            if (failure == null) {
+                ticket.status = RideTicketDTO.Status.COMPLETED;
+                ticket.result = response;
+            } else {
+                Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                        ? failure.getCause() : failure;
+                log.error("Async ride request {} failed", ticket.id, cause);
+                ticket.status = RideTicketDTO.Status.FAILED;
+                ticket.error = cause.getMessage();
+            }
+            ticket.completedAt = LocalDateTime.now();
+            waiting = rideUpdatePublisher.drain(RideUpdatePublisher.ticketTopic(ticket.id));
+        }
+
+        log.info("Ticket {} {} in {} ms", ticket.id, ticket.status,
+                Duration.between(ticket.submittedAt, ticket.completedAt).toMillis());
+        deliver(ticket, waiting);
+    }
+
+    /**
+     * Send the outcome, then keep successful streams open for the passenger's ride updates
+     */
+    private void deliver(Ticket ticket, List<SseEmitter> emitters) {
+        RideTicketDTO outcome = ticket.toDTO();
+        for (SseEmitter emitter : emitters) {
+            rideUpdatePublisher.send(emitter, TICKET_EVENT, outcome);
+            if (ticket.status == RideTicketDTO.Status.COMPLETED) {
+                rideUpdatePublisher.register(RideUpdatePublisher.passengerTopic(ticket.result.getPassengerId()), emitter);
+            } else {
+                emitter.complete();
+            }
+        }
+    }
+
+    private Ticket findTicket(String ticketId) {
+        Ticket ticket = tickets.get(ticketId);
+        if (ticket == null) {
+            throw new ResourceNotFoundException("Ticket not found with id: " + ticketId);
+        }
+        return ticket;
+    }
+
+    /**
+     * Mutable ticket state, guarded by the ticket's monitor
+     */
+    private static class Ticket {
+        private final String id;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private RideTicketDTO.Status status = RideTicketDTO.Status.PENDING;
+        private RideResponseDTO result;
+        private String error;
+        private volatile LocalDateTime completedAt;
+
+        Ticket(String id) {
+            this.id = id;
+        }
+
+        synchronized RideTicketDTO toDTO() {
+            return RideTicketDTO.builder()
+                    .ticketId(id)
+                    .status(status)
+                    .result(result)
+                    .error(error)
+                    .statusUrl("/api/rides/tickets/" + id)
+                    .eventsUrl("/api/rides/tickets/" + id + "/events")
+                    .submittedAt(submittedAt)
+                    .completedAt(completedAt)
+                    .build();
+        }
+    }
+}
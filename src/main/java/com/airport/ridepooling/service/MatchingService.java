@@ -1,24 +1,36 @@
 package com.airport.ridepooling.service;
 
-import com.airport.ridepooling.model.Location;
+import com.airport.ridepooling.model.BoundingBox;
 import com.airport.ridepooling.model.Passenger;
-import com.airport.ridepooling.model.Ride;
+import com.airport.ridepooling.model.RideSnapshot;
 import com.airport.ridepooling.model.RideStatus;
+import com.airport.ridepooling.model.TripSnapshot;
 import com.airport.ridepooling.repository.RideRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Service responsible for matching passengers to rides
  * Implements greedy matching algorithm with constraint checking
  * 
  * ALGORITHM COMPLEXITY ANALYSIS:
- * - Time Complexity: O(n × m) where n = active rides, m = passengers per ride
- * - Space Complexity: O(1) - no additional data structures
+ * - Time Complexity: O(k × s² × m) where k = pending rides near the pickup
+ *   departing within its pickup window,
+ *   s = stops on a ride's planned route, m = passengers per ride
+ *   (s and m are bounded by ride capacity, so effectively O(k))
+ * - Space Complexity: O(n) for the pending ride spatial index
  * - Approach: Greedy algorithm - finds ride with minimum detour cost
+ * 
+ * Candidates are read as RideSnapshot records from one joined projection query,
+ * never as managed entities; only the ride finally booked is loaded as an entity.
  */
 @Service
 @Slf4j
@@ -27,174 +39,283 @@ public class MatchingService {
     @Autowired
     private RideRepository rideRepository;
     
+    @Autowired
+    private PendingRideIndex pendingRideIndex;
+    
+    @Autowired
+    private RoutePlanner routePlanner;
+    
+    @Autowired
+    private SeatLedger seatLedger;
+    
+    @Autowired
+    private RideMetrics rideMetrics;
+    
+    @Value("${ridepooling.matching.spatial-index.enabled:true}")
+    private boolean spatialIndexEnabled;
+    
     // Configuration constants
-    private static final double MAX_SEARCH_RADIUS_KM = 5.0;
+    public static final double MAX_SEARCH_RADIUS_KM = 5.0;
     private static final double DETOUR_TOLERANCE_PERCENTAGE = 0.20; // 20% max detour
-    private static final double AVERAGE_CITY_SPEED_KMH = 30.0;
     
     /**
      * Find the best matching ride for a new passenger
      * Uses greedy algorithm to minimize total detour cost
      * 
      * @param newPassenger The passenger requesting a ride
-     * @return The best matching Ride, or null if no suitable match found
+     * @return Snapshot of the best matching ride, or null if no suitable match found
      */
-    public Ride findBestMatch(Passenger newPassenger) {
+    public RideSnapshot findBestMatch(Passenger newPassenger) {
         log.info("Finding match for passenger: {} from {} to {}", 
                  newPassenger.getName(),
                  newPassenger.getPickupLocation(), 
                  newPassenger.getDropoffLocation());
         
-        // Step 1: Get all available rides (rides with available seats)
-        List<Ride> activeRides = rideRepository.findAvailableRidesByStatus(RideStatus.PENDING);
-        log.debug("Found {} active rides to evaluate", activeRides.size());
-        
-        Ride bestMatch = null;
-        double minDetourCost = Double.MAX_VALUE;
+        long start = System.nanoTime();
+        Candidate bestMatch = null;
         
-        // Step 2: Evaluate each ride
-        for (Ride ride : activeRides) {
-            // Constraint 1: Check capacity (seats and luggage)
-            if (!ride.canAccommodate(newPassenger)) {
-                log.debug("Ride {} cannot accommodate - insufficient capacity", ride.getId());
-                continue;
-            }
-            
-            // Constraint 2: Check if pickup locations are within acceptable radius
-            if (!isWithinSearchRadius(ride, newPassenger)) {
-                log.debug("Ride {} rejected - outside search radius", ride.getId());
-                continue;
-            }
-            
-            // Constraint 3: Calculate detour cost
-            double detourCost = calculateDetourCost(ride, newPassenger);
-            log.debug("Ride {} detour cost: {} km", ride.getId(), detourCost);
-            
-            // Constraint 4: Check if detour exceeds tolerance for any passenger
-            if (exceedsDetourTolerance(ride, newPassenger, detourCost)) {
-                log.debug("Ride {} rejected - exceeds detour tolerance", ride.getId());
-                continue;
-            }
-            
-            // Step 3: Select ride with minimum detour (greedy choice)
-            if (detourCost < minDetourCost) {
-                minDetourCost = detourCost;
-                bestMatch = ride;
-                log.debug("New best match: Ride {} with detour cost {}", ride.getId(), detourCost);
+        // Select ride with minimum detour (greedy choice)
+        for (Candidate candidate : findCandidates(newPassenger)) {
+            if (bestMatch == null || candidate.detourCost() < bestMatch.detourCost()) {
+                bestMatch = candidate;
+                log.debug("New best match: Ride {} with detour cost {}", 
+                         candidate.ride().id(), candidate.detourCost());
             }
         }
+        rideMetrics.recordMatching(System.nanoTime() - start);
         
         if (bestMatch != null) {
             log.info("Best match found: Ride {} with detour cost {} km", 
-                     bestMatch.getId(), minDetourCost);
-        } else {
-            log.info("No suitable match found - will create new ride");
+                     bestMatch.ride().id(), bestMatch.detourCost());
+            return bestMatch.ride();
         }
         
-        return bestMatch;
+        log.info("No suitable match found - will create new ride");
+        return null;
     }
     
     /**
-     * Check if new passenger's pickup is within acceptable radius
-     * from existing passengers in the ride
+     * Find every pending ride the passenger could feasibly join
+     * Used directly by batch matching, which needs the full cost row
+     * 
+     * @param newPassenger The passenger requesting a ride
+     * @return Feasible rides with their detour cost, in no particular order
      */
-    private boolean isWithinSearchRadius(Ride ride, Passenger newPassenger) {
-        if (ride.getPassengers().isEmpty()) {
-            return true;
-        }
-        
-        // Check distance from first passenger's pickup location
-        Passenger primaryPassenger = ride.getPrimaryPassenger();
-        double distance = primaryPassenger.getPickupLocation()
-                .distanceTo(newPassenger.getPickupLocation());
+    public List<Candidate> findCandidates(Passenger newPassenger) {
+        // Step 1: Get pending rides anchored near the pickup
+        long queryStart = System.nanoTime();
+        List<RideSnapshot> activeRides = spatialIndexEnabled
+                ? findNearbyRidesFromIndex(newPassenger)
+                : findNearbyRidesFromDatabase(newPassenger);
+        long evaluationStart = System.nanoTime();
+        rideMetrics.recordCandidateQuery(evaluationStart - queryStart, activeRides.size());
+        log.debug("Found {} active rides to evaluate", activeRides.size());
         
-        return distance <= MAX_SEARCH_RADIUS_KM;
+        // Step 2: Evaluate each ride
+        List<Candidate> candidates = new ArrayList<>();
+        for (RideSnapshot ride : activeRides) {
+            Candidate candidate = evaluate(ride, newPassenger);
+            if (candidate != null) {
+                candidates.add(candidate);
+            }
+        }
+        rideMetrics.recordEvaluation(System.nanoTime() - evaluationStart);
+        return candidates;
     }
     
     /**
-     * Calculate the additional distance added by including new passenger
-     * Simplified model: Assumes optimal route ordering
+     * Find feasible pending rides for a whole group of passengers at once
+     * Set-based: nearby rides of all passengers are loaded in a single query,
+     * then every passenger is evaluated against them in memory
+     * 
+     * Time Complexity: O(g × k) evaluations where g = group size, k = rides near the group
      * 
-     * For production: Use actual route optimization (e.g., Google Maps Directions API)
+     * @param passengers The group of passengers requesting rides
+     * @return Candidate lists, one per passenger, in the order of the group
      */
-    private double calculateDetourCost(Ride ride, Passenger newPassenger) {
-        if (ride.getPassengers().isEmpty()) {
-            return 0.0;
+    public List<List<Candidate>> findCandidates(List<Passenger> passengers) {
+        if (passengers.isEmpty()) {
+            return List.of();
         }
         
-        Passenger existingPassenger = ride.getPrimaryPassenger();
-        
-        // Calculate direct distances
-        double existingDirectDistance = existingPassenger.getDirectDistance();
-        double newDirectDistance = newPassenger.getDirectDistance();
+        long queryStart = System.nanoTime();
+        List<RideSnapshot> activeRides = spatialIndexEnabled
+                ? findNearbyRidesFromIndex(passengers)
+                : findNearbyRidesFromDatabase(passengers);
+        long evaluationStart = System.nanoTime();
+        rideMetrics.recordCandidateQuery(evaluationStart - queryStart, activeRides.size());
+        log.debug("Found {} active rides to evaluate for a group of {}", activeRides.size(), passengers.size());
         
-        // Simplified pooled route calculation
-        // Route: Pickup1 -> Pickup2 -> Dropoff1 -> Dropoff2
-        double pooledDistance = calculateSimplifiedPooledRoute(
-                existingPassenger.getPickupLocation(),
-                existingPassenger.getDropoffLocation(),
-                newPassenger.getPickupLocation(),
-                newPassenger.getDropoffLocation()
-        );
-        
-        // Detour cost = Additional distance compared to direct routes
-        return pooledDistance - existingDirectDistance - newDirectDistance;
+        List<List<Candidate>> candidatesByPassenger = new ArrayList<>(passengers.size());
+        for (Passenger passenger : passengers) {
+            List<Candidate> candidates = new ArrayList<>();
+            for (RideSnapshot ride : activeRides) {
+                Candidate candidate = evaluate(ride, passenger);
+                if (candidate != null) {
+                    candidates.add(candidate);
+                }
+            }
+            candidatesByPassenger.add(candidates);
+        }
+        rideMetrics.recordEvaluation(System.nanoTime() - evaluationStart);
+        return candidatesByPassenger;
     }
     
     /**
-     * Simplified pooled route calculation
-     * In production, use proper TSP solver or route optimization API
+     * Candidate rides from the in-memory spatial index, read by id
      */
-    private double calculateSimplifiedPooledRoute(
-            Location pickup1, Location dropoff1,
-            Location pickup2, Location dropoff2) {
-        
-        // Try different route orderings and pick shortest
-        // Order 1: P1 -> P2 -> D1 -> D2
-        double route1 = pickup1.distanceTo(pickup2) +
-                       pickup2.distanceTo(dropoff1) +
-                       dropoff1.distanceTo(dropoff2);
-        
-        // Order 2: P1 -> P2 -> D2 -> D1
-        double route2 = pickup1.distanceTo(pickup2) +
-                       pickup2.distanceTo(dropoff2) +
-                       dropoff2.distanceTo(dropoff1);
-        
-        return Math.min(route1, route2);
+    private List<RideSnapshot> findNearbyRidesFromIndex(Passenger newPassenger) {
+        List<Long> nearbyRideIds = pendingRideIndex.findNearby(
+                newPassenger.getPickupLocation(), MAX_SEARCH_RADIUS_KM,
+                newPassenger.getEarliestPickup(), newPassenger.getLatestPickup());
+        if (nearbyRideIds.isEmpty()) {
+            log.debug("No pending rides near pickup {}", newPassenger.getPickupLocation());
+            return List.of();
+        }
+        return rideRepository.findSnapshotsById(nearbyRideIds);
     }
     
     /**
-     * Check if adding new passenger exceeds detour tolerance
-     * for any existing passenger in the ride
+     * Union of the index neighbourhoods of a group, loaded in one query
      */
-    private boolean exceedsDetourTolerance(Ride ride, Passenger newPassenger, 
-                                          double additionalDistance) {
-        // Check tolerance for existing passengers
-        for (Passenger existingPassenger : ride.getPassengers()) {
-            double directDistance = existingPassenger.getDirectDistance();
-            
-            // Calculate detour time in minutes
-            double detourTimeMinutes = (additionalDistance / AVERAGE_CITY_SPEED_KMH) * 60;
-            
-            if (detourTimeMinutes > existingPassenger.getMaxDetourMinutes()) {
-                log.debug("Detour of {} minutes exceeds passenger {}'s tolerance of {} minutes",
-                         detourTimeMinutes, existingPassenger.getName(), 
-                         existingPassenger.getMaxDetourMinutes());
-                return true;
+    private List<RideSnapshot> findNearbyRidesFromIndex(List<Passenger> passengers) {
+        Set<Long> nearbyRideIds = new LinkedHashSet<>();
+        for (Passenger passenger : passengers) {
+            nearbyRideIds.addAll(pendingRideIndex.findNearby(passenger.getPickupLocation(), MAX_SEARCH_RADIUS_KM,
+                    passenger.getEarliestPickup(), passenger.getLatestPickup()));
+        }
+        if (nearbyRideIds.isEmpty()) {
+            return List.of();
+        }
+        return rideRepository.findSnapshotsById(nearbyRideIds);
+    }
+    
+    /**
+     * Candidate rides from the database, prefiltered in SQL by anchor
+     * bounding box, seat/luggage capacity and departure window
+     */
+    private List<RideSnapshot> findNearbyRidesFromDatabase(Passenger newPassenger) {
+        BoundingBox box = BoundingBox.around(newPassenger.getPickupLocation(), MAX_SEARCH_RADIUS_KM);
+        return rideRepository.findCandidateSnapshots(
+                RideStatus.PENDING, newPassenger.getLuggageCount(),
+                box.minLatitude(), box.maxLatitude(),
+                box.minLongitude(), box.maxLongitude(),
+                newPassenger.getEarliestPickup(), newPassenger.getLatestPickup());
+    }
+    
+    /**
+     * Candidate rides for a group from one SQL query over the envelope of
+     * all pickup boxes and pickup windows and the smallest luggage count in the group
+     * (per-passenger radius, window and luggage are re-checked in evaluate)
+     */
+    private List<RideSnapshot> findNearbyRidesFromDatabase(List<Passenger> passengers) {
+        double minLatitude = Double.MAX_VALUE;
+        double maxLatitude = -Double.MAX_VALUE;
+        double minLongitude = Double.MAX_VALUE;
+        double maxLongitude = -Double.MAX_VALUE;
+        int minLuggage = Integer.MAX_VALUE;
+        LocalDateTime earliest = null;
+        LocalDateTime latest = null;
+        boolean scheduled = true;
+        for (Passenger passenger : passengers) {
+            BoundingBox box = BoundingBox.around(passenger.getPickupLocation(), MAX_SEARCH_RADIUS_KM);
+            minLatitude = Math.min(minLatitude, box.minLatitude());
+            maxLatitude = Math.max(maxLatitude, box.maxLatitude());
+            minLongitude = Math.min(minLongitude, box.minLongitude());
+            maxLongitude = Math.max(maxLongitude, box.maxLongitude());
+            minLuggage = Math.min(minLuggage, passenger.getLuggageCount());
+            if (passenger.getEarliestPickup() == null || passenger.getLatestPickup() == null) {
+                scheduled = false;
+            } else {
+                earliest = earliest == null || passenger.getEarliestPickup().isBefore(earliest)
+                        ? passenger.getEarliestPickup() : earliest;
+                latest = latest == null || passenger.getLatestPickup().isAfter(latest)
+                        ? passenger.getLatestPickup() : latest;
             }
         }
+        return rideRepository.findCandidateSnapshots(
+                RideStatus.PENDING, minLuggage,
+                minLatitude, maxLatitude, minLongitude, maxLongitude,
+                scheduled ? earliest : null, scheduled ? latest : null);
+    }
+    
+    /**
+     * Check all matching constraints for one ride
+     * 
+     * @param ride The ride to evaluate
+     * @param newPassenger The passenger requesting a ride
+     * @return The ride with its detour cost, or null if any constraint fails
+     */
+    public Candidate evaluate(RideSnapshot ride, Passenger newPassenger) {
+        rideMetrics.candidateEvaluated();
+        
+        // Index may lag behind a concurrent booking - re-check committed state
+        if (ride.status() != RideStatus.PENDING) {
+            log.debug("Ride {} is no longer pending", ride.id());
+            rideMetrics.candidateRejected(RideMetrics.Rejection.STATUS);
+            return null;
+        }
+        
+        // Time window: the ride must leave within the passenger's pickup window
+        if (!ride.canPickUp(newPassenger)) {
+            log.debug("Ride {} rejected - departure window does not overlap pickup window", ride.id());
+            rideMetrics.candidateRejected(RideMetrics.Rejection.WINDOW);
+            return null;
+        }
         
-        // Check tolerance for new passenger
-        double newDirectTime = newPassenger.getDirectTravelTime();
-        double detourPercentage = (additionalDistance / newPassenger.getDirectDistance());
+        // Constraint 1: Check capacity (seats and luggage), net of in-flight reservations
+        if (!ride.canAccommodate(newPassenger.getLuggageCount())
+                || !seatLedger.canAccommodate(ride, newPassenger.getLuggageCount())) {
+            log.debug("Ride {} cannot accommodate - insufficient capacity", ride.id());
+            rideMetrics.candidateRejected(RideMetrics.Rejection.CAPACITY);
+            return null;
+        }
+        
+        // Constraint 2: Check if pickup locations are within acceptable radius
+        if (!isWithinSearchRadius(ride, newPassenger)) {
+            log.debug("Ride {} rejected - outside search radius", ride.id());
+            rideMetrics.candidateRejected(RideMetrics.Rejection.RADIUS);
+            return null;
+        }
+        
+        // Constraint 3: Cheapest feasible insertion into the ride's planned route
+        // (checks the detour tolerance of every passenger on board and the new one)
+        RoutePlanner.Route route = routePlanner.routeFor(ride);
+        RoutePlanner.Insertion insertion = routePlanner.findInsertion(route, newPassenger);
+        if (insertion == null) {
+            log.debug("Ride {} rejected - exceeds detour tolerance", ride.id());
+            rideMetrics.candidateRejected(RideMetrics.Rejection.DETOUR);
+            return null;
+        }
         
-        double newPassengerDetourMinutes = newDirectTime * detourPercentage;
-        if (newPassengerDetourMinutes > newPassenger.getMaxDetourMinutes()) {
-            log.debug("Detour of {} minutes exceeds new passenger's tolerance of {} minutes",
-                     newPassengerDetourMinutes, newPassenger.getMaxDetourMinutes());
+        // Detour cost = additional distance compared to serving the new passenger directly
+        double detourCost = insertion.addedDistanceKm() - newPassenger.getDirectDistance();
+        log.debug("Ride {} detour cost: {} km", ride.id(), detourCost);
+        rideMetrics.candidateFeasible();
+        
+        return new Candidate(ride, detourCost);
+    }
+    
+    /**
+     * Check if new passenger's pickup is within acceptable radius
+     * from existing passengers in the ride
+     */
+    private boolean isWithinSearchRadius(RideSnapshot ride, Passenger newPassenger) {
+        if (ride.trips().isEmpty()) {
             return true;
         }
         
-        return false;
+        // Check distance from first passenger's pickup location
+        // (equirectangular approximation is exact enough for a 5 km radius)
+        TripSnapshot primaryTrip = ride.primaryTrip();
+        double distance = primaryTrip.getPickupLocation()
+                .approxDistanceTo(newPassenger.getPickupLocation());
+        
+        return distance <= MAX_SEARCH_RADIUS_KM;
     }
+    
+    /**
+     * A ride the passenger can feasibly join, with the detour it would add
+     */
+    public record Candidate(RideSnapshot ride, double detourCost) {}
 }
@@ -0,0 +1,100 @@
+package com.airport.ridepooling.service;
+
+import java.util.Arrays;
+
+/**
+ * Min-cost assignment solver (Hungarian algorithm, potentials variant)
+ * Used by batch matching to assign a group of passengers to rides in one pass
+ *
+ * ALGORITHM COMPLEXITY ANALYSIS:
+ * - Time Complexity: O(n² × m) where n = rows (passengers), m = columns (options)
+ * - Space Complexity: O(n + m)
+ */
+public final class MinCostAssignment {
+
+    private MinCostAssignment() {
+    }
+
+    /**
+     * Assign every row to a distinct column so that the total cost is minimal
+     * Infeasible pairs should be given a large finite cost rather than infinity
+     *
+     * @param cost Cost matrix with rows <= columns
+     * @return Column index assigned to each row
+     */
+    public static int[] solve(double[][] cost) {
+        int rows = cost.length;
+        if (rows == 0) {
+            return new int[0];
+        }
+
+        int columns = cost[0].length;
+        if (columns < rows) {
+            throw new IllegalArgumentException("Assignment needs at least as many columns as rows");
+        }
+
+        // 1-indexed potentials; column 0 is a virtual start column
+        double[] rowPotential = new double[rows + 1];
+        double[] columnPotential = new double[columns + 1];
+        int[] columnOwner = new int[columns + 1];
+        int[] previousColumn = new int[columns + 1];
+        double[] minSlack = new double[columns + 1];
+        boolean[] visited = new boolean[columns + 1];
+
+        for (int row = 1; row <= rows; row++) {
+            columnOwner[0] = row;
+            int currentColumn = 0;
+            Arrays.fill(minSlack, Double.POSITIVE_INFINITY);
+            Arrays.fill(visited, false);
+
+            // Grow an alternating path until it reaches a free column
+            do {
+                visited[currentColumn] = true;
+                int currentRow = columnOwner[currentColumn];
+                double delta = Double.POSITIVE_INFINITY;
+                int nextColumn = 0;
+
+                for (int column = 1; column <= columns; column++) {
+                    if (visited[column]) {
+                        continue;
+                    }
+                    double slack = cost[currentRow - 1][column - 1]
+                            - rowPotential[currentRow] - columnPotential[column];
+                    if (slack < minSlack[column]) {
+                        minSlack[column] = slack;
+                        previousColumn[column] = currentColumn;
+                    }
+                    if (minSlack[column] < delta) {
+                        delta = minSlack[column];
+                        nextColumn = column;
+                    }
+                }
+
+                for (int column = 0; column <= columns; column++) {
+                    if (visited[column]) {
+                        rowPotential[columnOwner[column]] += delta;
+                        columnPotential[column] -= delta;
+                    } else {
+                        minSlack[column] -= delta;
+                    }
+                }
+                currentColumn = nextColumn;
+            } while (columnOwner[currentColumn] != 0);
+
+            // Flip the augmenting path
+            do {
+                int column = previousColumn[currentColumn];
+                columnOwner[currentColumn] = columnOwner[column];
+                currentColumn = column;
+            } while (currentColumn != 0);
+        }
+
+        int[] assignment = new int[rows];
+        for (int column = 1; column <= columns; column++) {
+            if (columnOwner[column] != 0) {
+                assignment[columnOwner[column] - 1] = column - 1;
+            }
+        }
+        return assignment;
+    }
+}
@@ -0,0 +1,333 @@
+package com.airport.ridepooling.service;
+
+import com.airport.ridepooling.dto.RideRequestDTO;
+import com.airport.ridepooling.dto.RideResponseDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Function;
+
+/**
+ * Single-writer matching engine partitioned by pickup zone
+ * Zones are spread over a fixed number of partitions (ZoneResolver.stripeOf); each
+ * partition is owned by one thread that takes requests from a pre-allocated ring
+ * buffer and matches and books them one batch at a time, so requests of the same
+ * zone never race each other for a seat or a ride version. Results are handed back
+ * through completion futures.
+ *
+ * The owner drains whatever has been published since its last batch (up to
+ * max-batch-size) with no window to wait out: a quiet partition books each request
+ * on its own at once, a busy one amortizes a transaction over the whole backlog.
+ * Persistence is the batch handler's single commit per batch. A batch that fails
+ * is booked again one request at a time, so one bad request fails only itself.
+ *
+ * Ring: producers claim a sequence with a CAS on the claim counter, fill the slot
+ * and publish it by writing the sequence into the slot's published marker; the
+ * owner consumes published sequences in order and frees their slots by advancing
+ * its consumed counter. A full ring makes producers wait (back-pressure), an empty
+ * one makes the owner spin briefly and then park until a producer wakes it.
+ *
+ * Disabled by default - enable with ridepooling.matching.engine.enabled=true
+ *
+ * COMPLEXITY ANALYSIS:
+ * - Submit: O(1) (lock-free unless the ring is full)
+ * - Owner: O(b) per batch of b requests plus the batch handler
+ * - Space Complexity: O(p × r) where p = partitions, r = ring size
+ */
+@Component
+@Slf4j
+public class PartitionedMatchingEngine {
+
+    private static final int SPIN_TRIES = 1_000;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    @Autowired
+    private ZoneResolver zoneResolver;
+
+    @Value("${ridepooling.matching.engine.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ridepooling.matching.engine.partitions:4}")
+    private int partitionCount = 4;
+
+    @Value("${ridepooling.matching.engine.ring-size:1024}")
+    private int ringSize = 1024;
+
+    @Value("${ridepooling.matching.engine.max-batch-size:64}")
+    private int maxBatchSize = 64;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connectionPoolSize = 10;
+
+    private volatile Partition[] partitions;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start one owner thread per partition
+     * @param handler Matches and commits a batch and returns one response per request, in order
+     */
+    public synchronized void start(Function<List<RideRequestDTO>, List<RideResponseDTO>> handler) {
+        if (!enabled || partitions != null) {
+            return;
+        }
+
+        // Power of two, so a sequence maps to its slot with a mask
+        int slots = Integer.highestOneBit(Math.max(ringSize, 2) - 1) << 1;
+        Partition[] started = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            started[i] = new Partition(i, slots, handler);
+        }
+        partitions = started;
+        for (Partition partition : started) {
+            partition.start();
+        }
+
+        log.info("Partitioned matching engine enabled ({} partitions, ring size {}, max batch {})",
+                partitionCount, slots, maxBatchSize);
+        if (partitionCount > connectionPoolSize) {
+            log.warn("{} matching partitions share {} JDBC connections - partitions will wait on the pool",
+                    partitionCount, connectionPoolSize);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        Partition[] stopped = partitions;
+        partitions = null;
+        if (stopped != null) {
+            for (Partition partition : stopped) {
+                partition.stop();
+            }
+        }
+    }
+
+    /**
+     * Hand a request to the partition owning its pickup zone
+     * Waits while that partition's ring is full
+     * @param request Ride request details
+     * @return Future completed when the batch containing this request commits
+     */
+    public CompletableFuture<RideResponseDTO> submit(RideRequestDTO request) {
+        CompletableFuture<RideResponseDTO> result = new CompletableFuture<>();
+        Partition[] current = partitions;
+        if (current == null) {
+            result.completeExceptionally(new IllegalStateException("Matching engine is not running"));
+            return result;
+        }
+
+        long zone = zoneResolver.zoneOf(request.getPickupLocation());
+        current[ZoneResolver.stripeOf(zone, current.length)].publish(request, result);
+        return result;
+    }
+
+    /**
+     * Requests published but not yet taken by their partition owner
+     */
+    public int backlog() {
+        Partition[] current = partitions;
+        if (current == null) {
+            return 0;
+        }
+        long queued = 0;
+        for (Partition partition : current) {
+            queued += partition.backlog();
+        }
+        return (int) queued;
+    }
+
+    /**
+     * Ring slot, reused for every sequence that maps to it
+     * Written by one producer before publication, read by the owner after it
+     */
+    private static final class Slot {
+        RideRequestDTO request;
+        CompletableFuture<RideResponseDTO> result;
+    }
+
+    private final class Partition implements Runnable {
+
+        private final int id;
+        private final Slot[] ring;
+        private final int mask;
+        private final AtomicLongArray published;
+        private final AtomicLong claimed = new AtomicLong(-1);
+        private final Function<List<RideRequestDTO>, List<RideResponseDTO>> handler;
+        private volatile long consumed = -1;
+        private volatile boolean sleeping;
+        private volatile boolean running;
+        private volatile boolean exited;
+        private volatile Thread owner;
+
+        Partition(int id, int size, Function<List<RideRequestDTO>, List<RideResponseDTO>> handler) {
+            this.id = id;
+            this.handler = handler;
+            this.mask = size - 1;
+            this.ring = new Slot[size];
+            this.published = new AtomicLongArray(size);
+            for (int i = 0; i < size; i++) {
+                ring[i] = new Slot();
+                published.set(i, -1);
+            }
+        }
+
+        void start() {
+            running = true;
+            Thread thread = new Thread(this, "ride-matching-partition-" + id);
+            thread.setDaemon(true);
+            owner = thread;
+            thread.start();
+        }
+
+        void stop() {
+            running = false;
+            Thread thread = owner;
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+
+        long backlog() {
+            return Math.max(0, claimed.get() - consumed);
+        }
+
+        /**
+         * Claim the next sequence, fill its slot and publish it (producer side)
+         */
+        void publish(RideRequestDTO request, CompletableFuture<RideResponseDTO> result) {
+            long sequence;
+            while (true) {
+                if (!running) {
+                    result.completeExceptionally(new IllegalStateException("Matching engine stopped"));
+                    return;
+                }
+                long current = claimed.get();
+                if (current - consumed >= ring.length) {
+                    LockSupport.parkNanos(FULL_PARK_NANOS);
+                } else if (claimed.compareAndSet(current, current + 1)) {
+                    sequence = current + 1;
+                    break;
+                }
+            }
+
+            int index = (int) sequence & mask;
+            Slot slot = ring[index];
+            slot.request = request;
+            slot.result = result;
+            published.set(index, sequence);
+            if (sleeping) {
+                LockSupport.unpark(owner);
+            }
+            // Published after the owner's final drain looked at this slot: nobody will take it
+            if (exited) {
+                result.completeExceptionally(new IllegalStateException("Matching engine stopped"));
+            }
+        }
+
+        /**
+         * Owner loop: take the published run after the last consumed sequence and book it
+         */
+        @Override
+        public void run() {
+            List<RideRequestDTO> requests = new ArrayList<>(maxBatchSize);
+            List<CompletableFuture<RideResponseDTO>> results = new ArrayList<>(maxBatchSize);
+            int idleSpins = 0;
+
+            while (running && !Thread.currentThread().isInterrupted()) {
+                long next = consumed + 1;
+                long last = next - 1;
+                while (last - next + 1 < maxBatchSize && isPublished(last + 1)) {
+                    last++;
+                }
+
+                if (last < next) {
+                    if (idleSpins++ < SPIN_TRIES) {
+                        Thread.onSpinWait();
+                    } else {
+                        sleeping = true;
+                        if (!isPublished(next)) {
+                            LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                        }
+                        sleeping = false;
+                    }
+                    continue;
+                }
+                idleSpins = 0;
+
+                for (long sequence = next; sequence <= last; sequence++) {
+                    Slot slot = ring[(int) sequence & mask];
+                    requests.add(slot.request);
+                    results.add(slot.result);
+                    slot.request = null;
+                    slot.result = null;
+                }
+                consumed = last; // slots copied out - producers may reuse them
+
+                dispatch(requests, results);
+                requests.clear();
+                results.clear();
+            }
+
+            // Fail anything still in the ring so callers are not left hanging on shutdown.
+            // exited is raised first: a slot published after this drain read it is failed
+            // by its producer, which checks exited after publishing
+            exited = true;
+            IllegalStateException stopped = new IllegalStateException("Matching engine stopped");
+            long last = claimed.get();
+            for (long sequence = consumed + 1; sequence <= last; sequence++) {
+                if (isPublished(sequence)) {
+                    ring[(int) sequence & mask].result.completeExceptionally(stopped);
+                }
+            }
+        }
+
+        private boolean isPublished(long sequence) {
+            return published.get((int) sequence & mask) == sequence;
+        }
+
+        /**
+         * Book a batch; if it fails, book its requests one by one so only the
+         * failing ones fail
+         */
+        private void dispatch(List<RideRequestDTO> requests, List<CompletableFuture<RideResponseDTO>> results) {
+            log.debug("Partition {} booking batch of {} ride requests", id, requests.size());
+            try {
+                List<RideResponseDTO> responses = handler.apply(requests);
+                for (int i = 0; i < results.size(); i++) {
+                    results.get(i).complete(responses.get(i));
+                }
+                return;
+            } catch (RuntimeException e) {
+                if (requests.size() == 1) {
+                    log.error("Partition {} failed a ride request", id, e);
+                    results.get(0).completeExceptionally(e);
+                    return;
+                }
+                log.warn("Partition {} failed a batch of {} ride requests - booking them one by one",
+                        id, requests.size(), e);
+            }
+
+            for (int i = 0; i < requests.size(); i++) {
+                try {
+                    results.get(i).complete(handler.apply(List.of(requests.get(i))).get(0));
+                } catch (RuntimeException e) {
+                    log.error("Partition {} failed a ride request", id, e);
+                    results.get(i).completeExceptionally(e);
+                }
+            }
+        }
+    }
+}
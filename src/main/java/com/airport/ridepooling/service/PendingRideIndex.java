@@ -0,0 +1,236 @@
+package com.airport.ridepooling.service;
+
+import com.airport.ridepooling.model.BoundingBox;
+import com.airport.ridepooling.model.Location;
+import com.airport.ridepooling.model.Passenger;
+import com.airport.ridepooling.model.Ride;
+import com.airport.ridepooling.model.RideStatus;
+import com.airport.ridepooling.repository.RideRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory spatial and temporal index of PENDING rides
+ * Rides are bucketed into a lat/lon grid by their primary passenger's pickup and,
+ * within each cell, into fixed time buckets covering their departure window.
+ * A query only reads the cells around the pickup and the buckets its pickup window
+ * touches, so pre-booked rides hours ahead never show up in an immediate search.
+ * Rides without a departure window (booked before windows existed) sit in a
+ * separate unscheduled bucket that every query reads.
+ *
+ * COMPLEXITY ANALYSIS:
+ * - Update (index/remove): O(b) where b = time buckets covered by the ride's window
+ * - Neighbourhood query: O(c × b + k) where c = cells covering the radius,
+ *   b = buckets covering the pickup window, k = rides in them
+ * - Space Complexity: O(n × b) where n = pending rides
+ */
+@Component
+@Slf4j
+public class PendingRideIndex {
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private RideJournal rideJournal;
+
+    @Value("${ridepooling.matching.time-bucket-minutes:15}")
+    private long timeBucketMinutes = 15;
+
+    private static final double CELL_SIZE_KM = 2.5; // Half of the matching search radius
+    private static final double KM_PER_DEGREE = 111.32;
+    private static final double CELL_SIZE_DEGREES = CELL_SIZE_KM / KM_PER_DEGREE;
+    private static final long UNSCHEDULED = Long.MIN_VALUE;
+
+    // (cell, time bucket) -> ids of the rides anchored in that cell and departing in that bucket
+    private final Map<Slot, Set<Long>> slots = new ConcurrentHashMap<>();
+
+    // ride id -> slots the ride is currently indexed in
+    private final Map<Long, List<Slot>> rideSlots = new ConcurrentHashMap<>();
+
+    /**
+     * Fill the index once the application is up: from the live rides of the ride
+     * journal when it is enabled, else from the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        if (!rideJournal.isEnabled()) {
+            rebuild();
+            return;
+        }
+        rideJournal.recoveredRides().forEach(this::index);
+        log.info("Pending ride index recovered from the ride journal with {} rides", rideSlots.size());
+    }
+
+    /**
+     * Rebuild the index from the database
+     */
+    public void rebuild() {
+        List<Ride> pendingRides = rideRepository.findAvailableRidesByStatus(RideStatus.PENDING);
+        pendingRides.forEach(this::index);
+        log.info("Pending ride index rebuilt with {} rides", rideSlots.size());
+    }
+
+    /**
+     * Add, move or drop a ride depending on its current state
+     * Only PENDING rides with free seats are kept in the index
+     * @param ride The ride whose state changed
+     */
+    public void index(Ride ride) {
+        if (ride.getId() == null) {
+            return;
+        }
+
+        Passenger primaryPassenger = ride.getPrimaryPassenger();
+        index(ride.getId(), ride.getStatus(), ride.getAvailableSeats(),
+                primaryPassenger != null ? primaryPassenger.getPickupLocation() : null,
+                ride.getScheduledTime(), ride.getScheduledUntil());
+    }
+
+    /**
+     * Add, move or drop a ride replayed from the ride journal
+     * @param ride The ride's last recorded state
+     */
+    public void index(RideJournal.RideState ride) {
+        index(ride.rideId(), ride.status(), ride.availableSeats(), ride.anchor(),
+                ride.scheduledTime(), ride.scheduledUntil());
+    }
+
+    private void index(Long rideId, RideStatus status, int availableSeats, Location anchor,
+                       LocalDateTime scheduledTime, LocalDateTime scheduledUntil) {
+        if (status != RideStatus.PENDING || availableSeats <= 0 || anchor == null) {
+            remove(rideId);
+            return;
+        }
+
+        long cell = cellKey(latitudeIndex(anchor.getLatitude()), longitudeIndex(anchor.getLongitude()));
+        List<Slot> rideSlotList = new ArrayList<>();
+        if (scheduledTime == null || scheduledUntil == null) {
+            rideSlotList.add(new Slot(cell, UNSCHEDULED));
+        } else {
+            for (long bucket = timeBucket(scheduledTime); bucket <= timeBucket(scheduledUntil); bucket++) {
+                rideSlotList.add(new Slot(cell, bucket));
+            }
+        }
+
+        rideSlots.compute(rideId, (id, previousSlots) -> {
+            if (previousSlots != null) {
+                previousSlots.stream()
+                        .filter(slot -> !rideSlotList.contains(slot))
+                        .forEach(slot -> removeFromSlot(slot, id));
+            }
+            for (Slot slot : rideSlotList) {
+                slots.compute(slot, (key, slotRides) -> {
+                    Set<Long> rides = slotRides != null ? slotRides : ConcurrentHashMap.newKeySet();
+                    rides.add(id);
+                    return rides;
+                });
+            }
+            return rideSlotList;
+        });
+    }
+
+    /**
+     * Remove a ride from the index (matched, cancelled or dispatched)
+     * @param rideId The ride to remove
+     */
+    public void remove(Long rideId) {
+        if (rideId == null) {
+            return;
+        }
+
+        rideSlots.computeIfPresent(rideId, (id, rideSlotList) -> {
+            rideSlotList.forEach(slot -> removeFromSlot(slot, id));
+            return null;
+        });
+    }
+
+    /**
+     * Find ids of pending rides anchored within the given radius whose departure
+     * window may overlap the pickup window
+     * The result is a superset: callers still apply the exact distance and window checks
+     * @param pickup Center of the search
+     * @param radiusKm Search radius in kilometers
+     * @param earliest Start of the pickup window (null: unscheduled rides only)
+     * @param latest End of the pickup window (null: unscheduled rides only)
+     * @return Ids of candidate rides in the covering cells and buckets, without duplicates
+     */
+    public List<Long> findNearby(Location pickup, double radiusKm, LocalDateTime earliest, LocalDateTime latest) {
+        BoundingBox box = BoundingBox.around(pickup, radiusKm);
+        long minLat = latitudeIndex(box.minLatitude());
+        long maxLat = latitudeIndex(box.maxLatitude());
+        long minLon = longitudeIndex(box.minLongitude());
+        long maxLon = longitudeIndex(box.maxLongitude());
+        boolean scheduled = earliest != null && latest != null;
+        long firstBucket = scheduled ? timeBucket(earliest) : 0;
+        long lastBucket = scheduled ? timeBucket(latest) : -1;
+
+        Set<Long> rideIds = new LinkedHashSet<>();
+        for (long lat = minLat; lat <= maxLat; lat++) {
+            for (long lon = minLon; lon <= maxLon; lon++) {
+                long cell = cellKey(lat, lon);
+                addSlotRides(new Slot(cell, UNSCHEDULED), rideIds);
+                for (long bucket = firstBucket; bucket <= lastBucket; bucket++) {
+                    addSlotRides(new Slot(cell, bucket), rideIds);
+                }
+            }
+        }
+        return new ArrayList<>(rideIds);
+    }
+
+    /**
+     * Number of rides currently indexed
+     */
+    public int size() {
+        return rideSlots.size();
+    }
+
+    private void addSlotRides(Slot slot, Set<Long> rideIds) {
+        Set<Long> slotRides = slots.get(slot);
+        if (slotRides != null) {
+            rideIds.addAll(slotRides);
+        }
+    }
+
+    private void removeFromSlot(Slot slot, Long rideId) {
+        slots.computeIfPresent(slot, (key, slotRides) -> {
+            slotRides.remove(rideId);
+            return slotRides.isEmpty() ? null : slotRides;
+        });
+    }
+
+    private long timeBucket(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), timeBucketMinutes * 60);
+    }
+
+    private static long latitudeIndex(double latitude) {
+        return (long) Math.floor(latitude / CELL_SIZE_DEGREES);
+    }
+
+    private static long longitudeIndex(double longitude) {
+        return (long) Math.floor(longitude / CELL_SIZE_DEGREES);
+    }
+
+    private static long cellKey(long latIndex, long lonIndex) {
+        return (latIndex << 32) | (lonIndex & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Grid cell and time bucket (UNSCHEDULED for rides without a departure window)
+     */
+    private record Slot(long cell, long bucket) {
+    }
+}
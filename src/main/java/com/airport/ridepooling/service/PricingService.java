@@ -1,18 +1,22 @@
 package com.airport.ridepooling.service;
 
-import com.airport.ridepooling.model.Ride;
+import com.airport.ridepooling.model.Location;
 import com.airport.ridepooling.model.RideStatus;
-import com.airport.ridepooling.repository.RideRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.Comparator;
+import java.util.List;
+
 /**
  * Service for calculating dynamic ride pricing
  * 
  * PRICING FORMULA:
  * base_price = BASE_FARE + (distance × RATE_PER_KM)
- * surge_multiplier = 1 + (active_requests / SURGE_THRESHOLD) × MAX_SURGE_FACTOR
+ * surge_multiplier = 1 + (unmatched_zone_requests / zone_threshold) × MAX_SURGE_FACTOR
+ *   (unmatched requests in the pickup zone over the sliding window, see SurgeEngine)
  * sharing_discount = SHARING_DISCOUNT_RATE × (passenger_count - 1)
  * final_price = base_price × surge_multiplier × (1 - sharing_discount)
  */
@@ -21,7 +25,20 @@ import org.springframework.stereotype.Service;
 public class PricingService {
     
     @Autowired
-    private RideRepository rideRepository;
+    private RideStatusCounters rideStatusCounters;
+    
+    @Autowired
+    private SurgeEngine surgeEngine;
+    
+    @Autowired
+    private ZoneResolver zoneResolver;
+    
+    @Autowired
+    private RideMetrics rideMetrics;
+    
+    // Unmatched requests per zone and window that trigger max surge
+    @Value("${ridepooling.pricing.surge.zone-threshold:20}")
+    private int zoneSurgeThreshold = 20;
     
     // Pricing constants
     private static final double BASE_FARE = 5.0; // Base booking fee in $
@@ -34,15 +51,18 @@ public class PricingService {
      * Calculate fare for a ride
      * @param distance Distance in kilometers
      * @param passengerCount Number of passengers in the ride
+     * @param pickup Pickup location - its zone decides the surge
      * @return Calculated fare in dollars
      */
-    public double calculateFare(double distance, int passengerCount) {
+    public double calculateFare(double distance, int passengerCount, Location pickup) {
+        long start = System.nanoTime();
+        
         // Step 1: Calculate base price
         double basePrice = BASE_FARE + (distance * RATE_PER_KM);
         log.debug("Base price for {} km: ${}", distance, basePrice);
         
-        // Step 2: Calculate surge multiplier based on demand
-        double surgeMultiplier = calculateSurgeMultiplier();
+        // Step 2: Calculate surge multiplier based on demand in the pickup zone
+        double surgeMultiplier = calculateZoneSurgeMultiplier(surgeEngine.demandAt(pickup));
         log.debug("Surge multiplier: {}", surgeMultiplier);
         
         // Step 3: Calculate sharing discount
@@ -59,15 +79,17 @@ public class PricingService {
         log.info("Final price: ${} (base: ${}, surge: {}, discount: {}%)",
                 finalPrice, basePrice, surgeMultiplier, sharingDiscount * 100);
         
+        rideMetrics.recordPricing(System.nanoTime() - start);
         return finalPrice;
     }
     
     /**
      * Calculate surge multiplier based on current demand
      * Formula: 1 + (active_rides / threshold) × max_surge_factor
+     * Demand comes from in-memory counters - no database access
      */
     private double calculateSurgeMultiplier() {
-        long activeRides = rideRepository.countByStatus(RideStatus.PENDING);
+        long activeRides = rideStatusCounters.count(RideStatus.PENDING);
         
         // Surge increases linearly with demand
         double surgeFactor = Math.min(
@@ -78,6 +100,20 @@ public class PricingService {
         return 1.0 + surgeFactor;
     }
     
+    /**
+     * Calculate the surge multiplier of one zone from its windowed demand
+     * Formula: 1 + (unmatched_requests / zone_threshold) × max_surge_factor
+     * O(1) and lock-free - no database access
+     */
+    private double calculateZoneSurgeMultiplier(SurgeEngine.ZoneDemand demand) {
+        double surgeFactor = Math.min(
+            (double) demand.unmatchedRequests() / zoneSurgeThreshold,
+            1.0
+        ) * MAX_SURGE_FACTOR;
+        
+        return 1.0 + surgeFactor;
+    }
+    
     /**
      * Calculate sharing discount based on number of passengers
      * More passengers = higher discount
@@ -107,15 +143,30 @@ public class PricingService {
      * Get current surge information for transparency
      */
     public SurgeInfo getCurrentSurgeInfo() {
-        long activeRides = rideRepository.countByStatus(RideStatus.PENDING);
+        long activeRides = rideStatusCounters.count(RideStatus.PENDING);
         double surgeMultiplier = calculateSurgeMultiplier();
         boolean isSurging = surgeMultiplier > 1.0;
         
-        return new SurgeInfo(activeRides, surgeMultiplier, isSurging);
+        List<ZoneSurge> zones = surgeEngine.activeZones().stream()
+                .map(demand -> {
+                    double zoneMultiplier = calculateZoneSurgeMultiplier(demand);
+                    return new ZoneSurge(demand.zone(), zoneResolver.centerOf(demand.zone()),
+                            demand.requests(), demand.pooledMatches(), zoneMultiplier, zoneMultiplier > 1.0);
+                })
+                .sorted(Comparator.comparingDouble(ZoneSurge::multiplier).reversed())
+                .toList();
+        
+        return new SurgeInfo(activeRides, surgeMultiplier, isSurging, zones);
     }
     
     /**
      * Inner class for surge information
      */
-    public record SurgeInfo(long activeRides, double multiplier, boolean isSurging) {}
+    public record SurgeInfo(long activeRides, double multiplier, boolean isSurging, List<ZoneSurge> zones) {}
+    
+    /**
+     * Surge of one pickup zone over the sliding window
+     */
+    public record ZoneSurge(long zoneId, Location center, long requests, long pooledMatches,
+                            double multiplier, boolean isSurging) {}
 }
@@ -0,0 +1,319 @@
+package com.airport.ridepooling.service;
+
+import com.airport.ridepooling.exception.ServiceOverloadedException;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Admission control and load shedding for ride requests, per pickup zone
+ * Each zone admits a bounded number of bookings at a time. Requests over the limit
+ * wait in a bounded queue for a short while; a request that cannot get in degrades
+ * in steps instead of piling up behind a slow database:
+ * 1. admitted: matched and booked as usual
+ * 2. queued: waited for a permit (up to queue-timeout-ms), then booked as usual
+ * 3. degraded: queue full or wait timed out - booked as a solo ride with no matching
+ *    (one insert, no reads of contended rides), within a global degraded-limit
+ * 4. rejected: degraded bookings saturated too - ServiceOverloadedException (503 + Retry-After)
+ *
+ * The zone limit adapts to the observed latency of admitted bookings (AIMD on a
+ * moving average, so one slow booking does not move it): it grows by about one per
+ * limit's worth of fast bookings while the zone is using it, and is cut by
+ * backoff-ratio (at most once per target latency) while bookings average slower
+ * than target-latency-ms, so concurrency follows what the database can actually
+ * serve rather than a fixed guess.
+ *
+ * Zones with nothing admitted or queued are dropped by a periodic sweep and
+ * re-created (at initial-limit) by their next request.
+ *
+ * Disabled by default - enable with ridepooling.admission.enabled=true
+ *
+ * COMPLEXITY ANALYSIS:
+ * - Admit / release: O(1) (one short zone lock)
+ * - Cleanup: O(z) per sweep
+ * - Space Complexity: O(z) where z = zones with recent requests
+ */
+@Component
+@Slf4j
+public class RideAdmissionControl {
+
+    // Weight of the newest booking in a zone's moving average latency
+    private static final double LATENCY_SMOOTHING = 0.2;
+
+    @Autowired
+    private RideMetrics rideMetrics;
+
+    @Value("${ridepooling.admission.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ridepooling.admission.initial-limit:8}")
+    private int initialLimit = 8;
+
+    @Value("${ridepooling.admission.min-limit:1}")
+    private int minLimit = 1;
+
+    @Value("${ridepooling.admission.max-limit:64}")
+    private int maxLimit = 64;
+
+    @Value("${ridepooling.admission.target-latency-ms:500}")
+    private long targetLatencyMs = 500;
+
+    @Value("${ridepooling.admission.backoff-ratio:0.9}")
+    private double backoffRatio = 0.9;
+
+    @Value("${ridepooling.admission.queue-size:32}")
+    private int queueSize = 32;
+
+    @Value("${ridepooling.admission.queue-timeout-ms:500}")
+    private long queueTimeoutMs = 500;
+
+    @Value("${ridepooling.admission.degraded-limit:16}")
+    private int degradedLimit = 16;
+
+    @Value("${ridepooling.admission.retry-after-seconds:2}")
+    private long retryAfterSeconds = 2;
+
+    private final Map<Long, ZoneLimit> zones = new ConcurrentHashMap<>();
+    private Semaphore degradedPermits;
+
+    @PostConstruct
+    void init() {
+        degradedPermits = new Semaphore(degradedLimit);
+        if (enabled) {
+            log.info("Ride admission control enabled (zone limit {} in [{}, {}], target latency {} ms, "
+                    + "queue {} for {} ms, degraded limit {})", initialLimit, minLimit, maxLimit,
+                    targetLatencyMs, queueSize, queueTimeoutMs, degradedLimit);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Run a booking under the zone's admission limit
+     * @param zone Pickup zone of the request
+     * @param booking Full booking (matching + pooling)
+     * @param degraded Cheaper fallback (solo ride) used when the zone is saturated
+     * @throws ServiceOverloadedException If the fallback is saturated as well
+     */
+    public <T> T call(long zone, Supplier<T> booking, Supplier<T> degraded) {
+        if (!enabled) {
+            return booking.get();
+        }
+
+        ZoneLimit limit;
+        RideMetrics.Admission admission;
+        do {
+            limit = zones.computeIfAbsent(zone, z -> new ZoneLimit());
+            admission = limit.acquire();
+        } while (admission == null); // retired by the cleanup sweep - take the zone's new limit
+        if (admission != RideMetrics.Admission.DEGRADED) {
+            rideMetrics.admission(admission);
+            long start = System.nanoTime();
+            boolean completed = false;
+            try {
+                T result = booking.get();
+                completed = true;
+                return result;
+            } finally {
+                limit.release(System.nanoTime() - start, completed);
+            }
+        }
+
+        if (!degradedPermits.tryAcquire()) {
+            rideMetrics.admission(RideMetrics.Admission.REJECTED);
+            log.warn("Zone {} overloaded (limit {}) - rejecting ride request", zone, limit.limit());
+            throw new ServiceOverloadedException(
+                    "Too many ride requests right now - please retry shortly", retryAfterSeconds);
+        }
+        rideMetrics.admission(RideMetrics.Admission.DEGRADED);
+        log.info("Zone {} saturated (limit {}) - booking a solo ride without matching", zone, limit.limit());
+        try {
+            return degraded.get();
+        } finally {
+            degradedPermits.release();
+        }
+    }
+
+    /**
+     * Whether requests are waiting for the zone's limit
+     * Callers skip optional extra work (e.g. rematching after a lost race) while it is
+     */
+    public boolean isCongested(long zone) {
+        if (!enabled) {
+            return false;
+        }
+        ZoneLimit limit = zones.get(zone);
+        return limit != null && limit.isCongested();
+    }
+
+    /**
+     * Bookings currently admitted, over all zones
+     */
+    public int inFlight() {
+        int inFlight = 0;
+        for (ZoneLimit limit : zones.values()) {
+            inFlight += limit.inFlight();
+        }
+        return inFlight;
+    }
+
+    /**
+     * Remove zones with no admitted or queued bookings
+     * Idleness is checked under the zone's lock inside the map's bin lock, and the
+     * zone is retired there, so a request racing the sweep retries on a fresh zone
+     */
+    @Scheduled(fixedDelayString = "${ridepooling.admission.cleanup-interval-ms:60000}")
+    public void evictIdleZones() {
+        for (Long zone : zones.keySet()) {
+            zones.computeIfPresent(zone, (key, limit) -> limit.retireIfIdle() ? null : limit);
+        }
+    }
+
+    /**
+     * Zones currently tracked
+     */
+    public int zoneCount() {
+        return zones.size();
+    }
+
+    /**
+     * Adaptive concurrency limit and wait queue of one zone
+     */
+    private final class ZoneLimit {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition permitReleased = lock.newCondition();
+        private double limit = initialLimit;
+        private int inFlight;
+        private int waiting;
+        private double averageLatencyNanos;
+        private long lastDecreaseNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(targetLatencyMs);
+        private boolean retired;
+
+        /**
+         * Take a permit, waiting in the queue if there is room
+         * @return ADMITTED or QUEUED with a permit held, DEGRADED without one,
+         *         null if the zone was evicted and the caller must look it up again
+         */
+        RideMetrics.Admission acquire() {
+            lock.lock();
+            try {
+                if (retired) {
+                    return null;
+                }
+                if (inFlight < (int) limit) {
+                    inFlight++;
+                    return RideMetrics.Admission.ADMITTED;
+                }
+                if (waiting >= queueSize) {
+                    return RideMetrics.Admission.DEGRADED;
+                }
+
+                waiting++;
+                try {
+                    long remaining = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMs);
+                    while (inFlight >= (int) limit) {
+                        if (remaining <= 0) {
+                            return RideMetrics.Admission.DEGRADED;
+                        }
+                        remaining = permitReleased.awaitNanos(remaining);
+                    }
+                    inFlight++;
+                    return RideMetrics.Admission.QUEUED;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return RideMetrics.Admission.DEGRADED;
+                } finally {
+                    waiting--;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Hand back a permit and adapt the limit to the booking's latency
+         * Failed bookings only free their permit
+         */
+        void release(long latencyNanos, boolean completed) {
+            lock.lock();
+            try {
+                boolean saturated = inFlight >= (int) limit;
+                inFlight--;
+                if (completed) {
+                    averageLatencyNanos = averageLatencyNanos == 0 ? latencyNanos
+                            : averageLatencyNanos + LATENCY_SMOOTHING * (latencyNanos - averageLatencyNanos);
+                    long now = System.nanoTime();
+                    long targetNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMs);
+                    if (averageLatencyNanos > targetNanos) {
+                        if (now - lastDecreaseNanos >= targetNanos) {
+                            limit = Math.max(minLimit, limit * backoffRatio);
+                            lastDecreaseNanos = now;
+                        }
+                    } else if (saturated || waiting > 0) {
+                        limit = Math.min(maxLimit, limit + 1.0 / limit);
+                    }
+                }
+                if (inFlight < (int) limit) {
+                    permitReleased.signal();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Mark the zone retired if nothing is admitted or waiting
+         * @return Whether it was retired and can be removed
+         */
+        boolean retireIfIdle() {
+            lock.lock();
+            try {
+                retired = inFlight == 0 && waiting == 0;
+                return retired;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        boolean isCongested() {
+            lock.lock();
+            try {
+                return waiting > 0;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int inFlight() {
+            lock.lock();
+            try {
+                return inFlight;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int limit() {
+            lock.lock();
+            try {
+                return (int) limit;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.airport.ridepooling.service;
+
+import com.airport.ridepooling.dto.RideDetailsDTO;
+import com.airport.ridepooling.model.Ride;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Bounded cache of ride details, tagged with the ride version they were built from
+ * Clients poll GET /api/rides/{rideId}; an unchanged ride is served from memory
+ * without touching the database.
+ *
+ * Every committed ride change invalidates its entry. Invalidation leaves a
+ * tombstone carrying the committed version, so a reader that loaded the ride
+ * just before the change cannot put the stale details back afterwards: only
+ * details of the tombstone's version or newer are accepted.
+ * Entries also expire after a time-to-live, bounding staleness from writes
+ * that bypass RideService.
+ *
+ * Cached DTOs are shared between readers and must not be modified.
+ *
+ * COMPLEXITY ANALYSIS:
+ * - Lookup / put / invalidate: O(1)
+ * - Space Complexity: O(max-size)
+ */
+@Component
+public class RideDetailsCache {
+
+    @Autowired
+    private RideMetrics rideMetrics;
+
+    @Value("${ridepooling.rides.details-cache.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${ridepooling.rides.details-cache.max-size:10000}")
+    private long maxSize = 10_000;
+
+    @Value("${ridepooling.rides.details-cache.ttl-seconds:60}")
+    private long ttlSeconds = 60;
+
+    private Cache<Long, Entry> entries;
+
+    @PostConstruct
+    void init() {
+        entries = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .removalListener((Long rideId, Entry entry, RemovalCause cause) -> {
+                    if (cause.wasEvicted()) {
+                        rideMetrics.detailsCacheEviction();
+                    }
+                })
+                .build();
+    }
+
+    /**
+     * Cached details of a ride, or null on a miss
+     */
+    public RideDetailsDTO get(Long rideId) {
+        Entry entry = getEntry(rideId);
+        return entry != null ? entry.details() : null;
+    }
+
+    /**
+     * Cached details of a ride together with the version they were built at, or null on a miss
+     */
+    public Entry getEntry(Long rideId) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry = entries.getIfPresent(rideId);
+        boolean hit = entry != null && entry.details() != null;
+        rideMetrics.detailsCacheLookup(hit);
+        return hit ? entry : null;
+    }
+
+    /**
+     * Latest committed version of a ride known to the cache, or null if not cached
+     * Tombstones count: they carry the version of the change that invalidated them
+     */
+    public Long version(Long rideId) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry = entries.getIfPresent(rideId);
+        return entry != null ? entry.version() : null;
+    }
+
+    /**
+     * Cache details loaded from the database at the given ride version
+     * Ignored if a newer version has been committed in the meantime
+     */
+    public void put(Long version, RideDetailsDTO details) {
+        if (!enabled || version == null) {
+            return;
+        }
+        entries.asMap().compute(details.getRideId(), (rideId, current) ->
+                current == null || current.version() <= version ? new Entry(version, details) : current);
+    }
+
+    /**
+     * Drop the cached details of a changed ride
+     * Call after commit, with the ride at its committed version
+     */
+    public void invalidate(Ride ride) {
+        if (!enabled || ride.getId() == null) {
+            return;
+        }
+        if (ride.getVersion() == null) {
+            entries.invalidate(ride.getId());
+            return;
+        }
+        long version = ride.getVersion();
+        entries.asMap().compute(ride.getId(), (rideId, current) ->
+                current == null || current.version() <= version ? new Entry(version, null) : current);
+    }
+
+    /**
+     * Cached rides, including invalidation tombstones
+     */
+    public long size() {
+        return entries.estimatedSize();
+    }
+
+    /**
+     * Details built at a ride version; null details mark an invalidated entry
+     */
+    public record Entry(long version, RideDetailsDTO details) {
+    }
+}
@@ -0,0 +1,170 @@
+package com.airport.ridepooling.service;
+
+import com.airport.ridepooling.model.Ride;
+import com.airport.ridepooling.model.RideStatus;
+import com.airport.ridepooling.repository.RideRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Wait deadlines of open (PENDING / MATCHED) rides
+ * A ride waits at most max-wait for co-riders after its departure window opens,
+ * and never past the end of that window; then it is handed to the expiry handler
+ * (RideService dispatches it), which takes it out of the matching pool. This keeps
+ * the candidate set bounded by the live window instead of growing all day, while
+ * pre-booked rides stay open until their own window comes around.
+ *
+ * Deadlines live in a hierarchical timing wheel, so each tick touches only the
+ * rides that are due - there is no periodic scan of the rides table.
+ *
+ * COMPLEXITY ANALYSIS:
+ * - Schedule / cancel: O(1)
+ * - Tick: O(e) where e = rides expired (plus cascades, amortized O(1) per ride)
+ * - Space Complexity: O(n) where n = open rides
+ */
+@Component
+@Slf4j
+public class RideExpiryScheduler {
+
+    private static final EnumSet<RideStatus> OPEN = EnumSet.of(RideStatus.PENDING, RideStatus.MATCHED);
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    @Autowired
+    private RideJournal rideJournal;
+
+    @Value("${ridepooling.expiry.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${ridepooling.expiry.max-wait-seconds:600}")
+    private long maxWaitSeconds = 600;
+
+    @Value("${ridepooling.expiry.tick-ms:1000}")
+    private long tickMillis = 1000;
+
+    private LongSupplier clock = System::currentTimeMillis;
+
+    private TimingWheel wheel;
+    private volatile Consumer<Long> expiryHandler;
+
+    @PostConstruct
+    void init() {
+        wheel = new TimingWheel(tickMillis, clock.getAsLong());
+    }
+
+    /**
+     * Register the handler expired rides are passed to
+     */
+    public void start(Consumer<Long> handler) {
+        expiryHandler = handler;
+    }
+
+    /**
+     * Start (or move) the wait of an open ride, e.g. after its departure window changed
+     */
+    public void schedule(Ride ride) {
+        if (!enabled || ride.getId() == null || ride.getCreatedAt() == null || !OPEN.contains(ride.getStatus())) {
+            return;
+        }
+        wheel.schedule(ride.getId(), deadline(ride.getCreatedAt(), ride.getScheduledTime(), ride.getScheduledUntil()));
+    }
+
+    /**
+     * Try an expired ride again on the next tick (e.g. it lost a race with a booking)
+     */
+    public void retry(Long rideId) {
+        if (enabled) {
+            wheel.schedule(rideId, clock.getAsLong() + tickMillis);
+        }
+    }
+
+    /**
+     * Stop tracking a ride that was dispatched, completed or cancelled
+     */
+    public void cancel(Long rideId) {
+        if (enabled && rideId != null) {
+            wheel.cancel(rideId);
+        }
+    }
+
+    /**
+     * Open rides being tracked
+     */
+    public int size() {
+        return wheel.size();
+    }
+
+    /**
+     * Track the open rides once the application is up: the live rides of the ride
+     * journal when it is enabled, else the open rides in the database
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        if (rideJournal.isEnabled()) {
+            List<RideJournal.RideState> openRides = rideJournal.recoveredRides();
+            openRides.forEach(ride -> wheel.schedule(ride.rideId(),
+                    deadline(ride.createdAt(), ride.scheduledTime(), ride.scheduledUntil())));
+            log.info("Ride expiry tracking {} open rides from the ride journal (max wait {} s)",
+                    openRides.size(), maxWaitSeconds);
+            return;
+        }
+        List<RideRepository.RideSchedule> openRides = rideRepository.findSchedulesByStatusIn(OPEN);
+        openRides.forEach(ride -> wheel.schedule(ride.getId(),
+                deadline(ride.getCreatedAt(), ride.getScheduledTime(), ride.getScheduledUntil())));
+        log.info("Ride expiry tracking {} open rides (max wait {} s)", openRides.size(), maxWaitSeconds);
+    }
+
+    /**
+     * Advance the wheel and hand over the rides whose wait has run out
+     */
+    @Scheduled(fixedDelayString = "${ridepooling.expiry.tick-ms:1000}")
+    public void tick() {
+        Consumer<Long> handler = expiryHandler;
+        if (!enabled || handler == null) {
+            return;
+        }
+
+        List<Long> expired = wheel.advance(clock.getAsLong());
+        if (!expired.isEmpty()) {
+            log.debug("{} rides reached their wait deadline", expired.size());
+        }
+        for (Long rideId : expired) {
+            try {
+                handler.accept(rideId);
+            } catch (RuntimeException e) {
+                log.error("Expiring ride {} failed - retrying on the next tick", rideId, e);
+                retry(rideId);
+            }
+        }
+    }
+
+    /**
+     * max-wait after the departure window opens (after creation for rides without
+     * a window), capped at the end of the window
+     */
+    private long deadline(LocalDateTime createdAt, LocalDateTime scheduledTime, LocalDateTime scheduledUntil) {
+        LocalDateTime waitStart = scheduledTime != null && scheduledTime.isAfter(createdAt) ? scheduledTime : createdAt;
+        LocalDateTime deadline = waitStart.plusSeconds(maxWaitSeconds);
+        if (scheduledUntil != null && scheduledUntil.isBefore(deadline)) {
+            deadline = scheduledUntil;
+        }
+        return deadline.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,497 @@
+package com.airport.ridepooling.service;
+
+import com.airport.ridepooling.model.Location;
+import com.airport.ridepooling.model.Ride;
+import com.airport.ridepooling.model.RideStatus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only binary journal of ride lifecycle events
+ * Every committed ride change (created, joined, cancelled, status changed) is
+ * appended as one fixed-size record holding the ride's matching state after the
+ * change. On startup the journal is replayed sequentially, keeping only the
+ * highest-version record of each ride and dropping rides that left the matching
+ * pool, so the pending ride index and the expiry wheel are rebuilt from the live
+ * rides alone instead of scanning the rides table.
+ *
+ * Records are appended from after-commit callbacks on different threads, so two
+ * commits of one ride can land in the journal out of version order. Tracking is by
+ * version: an older record never replaces a newer one, and the versions of recently
+ * closed rides are remembered so a late, older record cannot reopen them.
+ *
+ * Writes go through a FileChannel with group commit: records are collected in a
+ * direct buffer and a flusher thread writes and fsyncs them every fsync-interval-ms,
+ * one fsync for all records of the interval. A crash can lose at most that interval;
+ * the database stays the source of truth and the matcher re-checks every candidate
+ * against it. A torn record at the tail (CRC mismatch) is truncated on replay.
+ *
+ * Record layout (64 bytes, big-endian):
+ * type(1) status(1) availableSeats(1) availableLuggage(1) rideId(8) version(8)
+ * anchorLat(8) anchorLon(8) createdAt(8) scheduledTime(8) scheduledUntil(8) crc32(4)
+ * (times in epoch milliseconds of the local date-time, Long.MIN_VALUE for none)
+ *
+ * Every snapshot-interval-ms the live ride state and the planned routes are written
+ * to a snapshot file tied to the journal position (see RideStateSnapshot); startup
+ * then loads the snapshot and replays only the journal tail after it, so recovery
+ * time is bounded by the live rides and the records of one snapshot interval.
+ *
+ * Only meaningful with a persistent datasource: when the schema is recreated on
+ * startup (ddl-auto create / create-drop) the journal starts empty as well.
+ * Disabled by default - enable with ridepooling.journal.enabled=true
+ *
+ * COMPLEXITY ANALYSIS:
+ * - Append: O(1), no I/O on the caller's thread
+ * - Recovery: O(n + t) where n = live rides in the snapshot, t = journal records after it
+ *   (O(j) sequential read of the whole journal without a snapshot)
+ * - Space Complexity: O(n) in memory (live ride states), O(j) on disk
+ */
+@Component
+@Slf4j
+public class RideJournal {
+
+    static final int RECORD_SIZE = 64;
+    private static final long MAGIC = 0x5249444A524E4C32L; // "RIDJRNL2"
+    private static final int HEADER_SIZE = 2 * Long.BYTES; // magic, journal id
+    private static final int CRC_OFFSET = 60;
+    private static final long NO_TIME = Long.MIN_VALUE;
+    private static final RideStatus[] STATUSES = RideStatus.values();
+    // Closed rides remembered against late, older records (the reorder window is one commit race)
+    private static final int MAX_CLOSED_RIDES = 65_536;
+
+    /**
+     * Ride lifecycle event recorded in the journal
+     */
+    public enum EventType { CREATED, JOINED, CANCELLED, STATUS_CHANGED }
+
+    @Autowired
+    private RideMetrics rideMetrics;
+
+    @Autowired
+    private RoutePlanner routePlanner;
+
+    @Value("${ridepooling.journal.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ridepooling.journal.path:data/ride-journal.bin}")
+    private String path = "data/ride-journal.bin";
+
+    @Value("${ridepooling.journal.fsync-interval-ms:10}")
+    private long fsyncIntervalMillis = 10;
+
+    @Value("${ridepooling.journal.snapshot-path:data/ride-journal.snapshot}")
+    private String snapshotPath = "data/ride-journal.snapshot";
+
+    @Value("${ridepooling.journal.buffer-records:1024}")
+    private int bufferRecords = 1024;
+
+    @Value("${spring.jpa.hibernate.ddl-auto:none}")
+    private String ddlAuto = "none";
+
+    private final Object lock = new Object();
+    private final Map<Long, RideState> liveRides = new HashMap<>();
+    private final Map<Long, Long> closedVersions = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+            return size() > MAX_CLOSED_RIDES;
+        }
+    };
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private ByteBuffer pending;
+    private boolean unsynced;
+    private long journalId;
+    private List<RideState> recoveredRides = List.of();
+    private volatile Thread flusher;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Open the journal and replay it before any ride is served
+     */
+    @PostConstruct
+    void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path file = Path.of(path);
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        pending = ByteBuffer.allocateDirect(RECORD_SIZE * bufferRecords);
+
+        if (ddlAuto.startsWith("create") && channel.size() > 0) {
+            log.info("Schema is recreated on startup (ddl-auto={}) - starting a fresh ride journal", ddlAuto);
+            channel.truncate(0);
+            Files.deleteIfExists(Path.of(snapshotPath));
+        }
+
+        long start = System.nanoTime();
+        long position = openHeader();
+        RideStateSnapshot.Contents snapshot = RideStateSnapshot.read(Path.of(snapshotPath));
+        int restored = 0;
+        if (snapshot != null && snapshot.journalId() == journalId
+                && snapshot.journalPosition() >= HEADER_SIZE && snapshot.journalPosition() <= channel.size()) {
+            closedVersions.putAll(snapshot.closedVersions());
+            for (RideStateSnapshot.Entry entry : snapshot.entries()) {
+                track(entry.state());
+                if (entry.route() != null) {
+                    routePlanner.restore(entry.state().rideId(), entry.route());
+                }
+            }
+            restored = snapshot.entries().size();
+            position = snapshot.journalPosition();
+        } else if (snapshot != null) {
+            log.warn("Ride journal snapshot {} does not belong to this journal - replaying the whole journal",
+                    snapshotPath);
+        }
+        long records = replay(position);
+        if (restored > 0) {
+            // Rides the journal tail closed keep no restored route
+            snapshot.entries().stream()
+                    .map(entry -> entry.state().rideId())
+                    .filter(rideId -> !liveRides.containsKey(rideId))
+                    .forEach(routePlanner::evict);
+        }
+        recoveredRides = List.copyOf(liveRides.values());
+        log.info("Ride journal {} recovered: {} rides from the snapshot, {} records replayed, {} live rides in {} ms",
+                file, restored, records, recoveredRides.size(), (System.nanoTime() - start) / 1_000_000);
+
+        Thread thread = new Thread(this::runFlusher, "ride-journal-flusher");
+        thread.setDaemon(true);
+        flusher = thread;
+        thread.start();
+    }
+
+    /**
+     * Flush and fsync what is buffered and take a final snapshot (so the next
+     * start replays nothing), then close the journal
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        Thread thread = flusher;
+        flusher = null;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(1_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (channel != null && channel.isOpen()) {
+            snapshot();
+            channel.close();
+        }
+    }
+
+    /**
+     * Record a committed ride change
+     * Call after commit, with the ride at its committed version
+     */
+    public void append(EventType type, Ride ride) {
+        if (!enabled || ride.getId() == null) {
+            return;
+        }
+        RideState state = RideState.of(ride);
+        synchronized (lock) {
+            if (pending.remaining() < RECORD_SIZE) {
+                try {
+                    writePending();
+                } catch (UncheckedIOException e) {
+                    log.error("Ride journal write failed - buffered records are lost", e);
+                }
+            }
+            encode(type, state, pending);
+            track(state);
+        }
+    }
+
+    /**
+     * Open rides as of the end of the journal at startup
+     */
+    public List<RideState> recoveredRides() {
+        return recoveredRides;
+    }
+
+    /**
+     * Open rides tracked by the journal
+     */
+    public int liveRideCount() {
+        synchronized (lock) {
+            return liveRides.size();
+        }
+    }
+
+    /**
+     * Write the live ride state and cached routes to the snapshot file
+     * Runs on the scheduler, off the request path: appends are held only while the
+     * live ride and closed ride maps are copied; the journal is fsynced up to the snapshot position
+     * before the snapshot is written
+     */
+    @Scheduled(fixedDelayString = "${ridepooling.journal.snapshot-interval-ms:60000}",
+               initialDelayString = "${ridepooling.journal.snapshot-interval-ms:60000}")
+    public void snapshot() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            List<RideState> rides;
+            Map<Long, Long> closed;
+            long position;
+            synchronized (lock) {
+                rides = new ArrayList<>(liveRides.values());
+                closed = new LinkedHashMap<>(closedVersions);
+                position = channel.position() + pending.position();
+            }
+            flush();
+            List<RideStateSnapshot.Entry> entries = new ArrayList<>(rides.size());
+            for (RideState ride : rides) {
+                RoutePlanner.Route route = routePlanner.cachedRoute(ride.rideId());
+                boolean current = route != null && route.rideVersion() != null && route.rideVersion() == ride.version();
+                entries.add(new RideStateSnapshot.Entry(ride, current ? route : null));
+            }
+            RideStateSnapshot.write(Path.of(snapshotPath), new RideStateSnapshot.Contents(journalId, position, entries, closed));
+            log.debug("Ride journal snapshot of {} rides at position {} written in {} ms",
+                    entries.size(), position, (System.nanoTime() - start) / 1_000_000);
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Ride journal snapshot failed - keeping the previous one", e);
+        }
+    }
+
+    /**
+     * Write buffered records and fsync them (group commit)
+     */
+    public void flush() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        synchronized (lock) {
+            if (pending.position() > 0) {
+                writePending();
+            }
+            if (!unsynced) {
+                return;
+            }
+            unsynced = false;
+        }
+        long start = System.nanoTime();
+        channel.force(false);
+        rideMetrics.recordJournalFsync(System.nanoTime() - start);
+    }
+
+    private void runFlusher() {
+        while (flusher == Thread.currentThread()) {
+            try {
+                Thread.sleep(fsyncIntervalMillis);
+                flush();
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException | UncheckedIOException e) {
+                log.error("Ride journal fsync failed - retrying", e);
+            }
+        }
+    }
+
+    private void writePending() {
+        unsynced = true;
+        pending.flip();
+        try {
+            while (pending.hasRemaining()) {
+                channel.write(pending);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ride journal write failed", e);
+        } finally {
+            pending.clear();
+        }
+    }
+
+    /**
+     * Check the journal header, writing one with a new journal id for an empty file
+     * @return Position of the first record
+     */
+    private long openHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        if (channel.size() < HEADER_SIZE) {
+            journalId = new SecureRandom().nextLong();
+            header.putLong(0, MAGIC).putLong(Long.BYTES, journalId);
+            channel.truncate(0);
+            channel.write(header, 0);
+            return HEADER_SIZE;
+        }
+        channel.read(header, 0);
+        if (header.getLong(0) != MAGIC) {
+            throw new IllegalStateException("Not a ride journal: " + path);
+        }
+        journalId = header.getLong(Long.BYTES);
+        return HEADER_SIZE;
+    }
+
+    /**
+     * Read the journal from the given position to the end into the live ride map
+     * A missing or torn tail record ends the replay and is cut off
+     * @return Number of records replayed
+     */
+    private long replay(long from) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocateDirect(RECORD_SIZE * 1024);
+        long position = from;
+        long records = 0;
+        while (true) {
+            chunk.clear();
+            int read = channel.read(chunk, position);
+            if (read <= 0) {
+                break;
+            }
+            chunk.flip();
+            boolean valid = true;
+            while (chunk.remaining() >= RECORD_SIZE) {
+                RideState state = decode(chunk);
+                if (state == null) {
+                    valid = false;
+                    break;
+                }
+                track(state);
+                position += RECORD_SIZE;
+                records++;
+            }
+            if (!valid || read < chunk.capacity()) {
+                break;
+            }
+        }
+        if (position < channel.size()) {
+            log.warn("Ride journal has a torn tail - truncating {} bytes", channel.size() - position);
+            channel.truncate(position);
+        }
+        channel.position(position);
+        return records;
+    }
+
+    /**
+     * Apply a ride state unless a newer version of the ride is already known
+     */
+    private void track(RideState state) {
+        Long closedVersion = closedVersions.get(state.rideId());
+        if (closedVersion != null && state.version() <= closedVersion) {
+            return;
+        }
+        RideState current = liveRides.get(state.rideId());
+        if (current != null && current.version() > state.version()) {
+            return;
+        }
+        if (state.isOpen()) {
+            liveRides.put(state.rideId(), state);
+        } else {
+            liveRides.remove(state.rideId());
+            closedVersions.put(state.rideId(), state.version());
+        }
+    }
+
+    private void encode(EventType type, RideState state, ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.put((byte) type.ordinal())
+                .put((byte) state.status().ordinal())
+                .put((byte) state.availableSeats())
+                .put((byte) state.availableLuggage())
+                .putLong(state.rideId())
+                .putLong(state.version())
+                .putDouble(state.anchorLatitude())
+                .putDouble(state.anchorLongitude())
+                .putLong(toMillis(state.createdAt()))
+                .putLong(toMillis(state.scheduledTime()))
+                .putLong(toMillis(state.scheduledUntil()));
+        buffer.putInt((int) checksum(buffer, start));
+    }
+
+    /**
+     * Decode the record at the buffer position and advance past it
+     * @return The ride state, or null if the record's checksum does not match
+     */
+    private RideState decode(ByteBuffer buffer) {
+        int start = buffer.position();
+        if (buffer.getInt(start + CRC_OFFSET) != (int) checksum(buffer, start)) {
+            return null;
+        }
+        buffer.get(); // event type: every record carries the full state, so replay needs only the last one
+        RideStatus status = STATUSES[buffer.get()];
+        int availableSeats = buffer.get();
+        int availableLuggage = buffer.get();
+        RideState state = new RideState(buffer.getLong(), buffer.getLong(), status, availableSeats, availableLuggage,
+                buffer.getDouble(), buffer.getDouble(),
+                fromMillis(buffer.getLong()), fromMillis(buffer.getLong()), fromMillis(buffer.getLong()));
+        buffer.position(start + RECORD_SIZE);
+        return state;
+    }
+
+    private long checksum(ByteBuffer buffer, int start) {
+        crc.reset();
+        crc.update(buffer.slice(start, CRC_OFFSET));
+        return crc.getValue();
+    }
+
+    static long toMillis(LocalDateTime time) {
+        return time != null ? time.toInstant(ZoneOffset.UTC).toEpochMilli() : NO_TIME;
+    }
+
+    static LocalDateTime fromMillis(long millis) {
+        return millis != NO_TIME ? LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC) : null;
+    }
+
+    /**
+     * Matching state of a ride as recorded in the journal
+     */
+    public record RideState(long rideId, long version, RideStatus status,
+                            int availableSeats, int availableLuggage,
+                            double anchorLatitude, double anchorLongitude,
+                            LocalDateTime createdAt, LocalDateTime scheduledTime, LocalDateTime scheduledUntil) {
+
+        static RideState of(Ride ride) {
+            return new RideState(ride.getId(), ride.getVersion() != null ? ride.getVersion() : 0L, ride.getStatus(),
+                    ride.getAvailableSeats(), ride.getAvailableLuggage(),
+                    ride.getAnchorLatitude() != null ? ride.getAnchorLatitude() : Double.NaN,
+                    ride.getAnchorLongitude() != null ? ride.getAnchorLongitude() : Double.NaN,
+                    ride.getCreatedAt(), ride.getScheduledTime(), ride.getScheduledUntil());
+        }
+
+        /**
+         * Still in the matching pool or waiting for dispatch
+         */
+        public boolean isOpen() {
+            return status == RideStatus.PENDING || status == RideStatus.MATCHED;
+        }
+
+        /**
+         * Primary passenger's pickup, or null for a ride without passengers
+         */
+        public Location anchor() {
+            return Double.isNaN(anchorLatitude) ? null : new Location(anchorLatitude, anchorLongitude);
+        }
+    }
+}
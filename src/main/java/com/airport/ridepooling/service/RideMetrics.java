@@ -0,0 +1,256 @@
+package com.airport.ridepooling.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters of the matching, pricing and booking hot paths
+ * Meters are registered once up front, so recording is a plain counter or
+ * timer update with no registry lookup per request. Timers publish histogram
+ * buckets for percentiles on /actuator/prometheus.
+ *
+ * Matching time is split into the candidate query and the candidate loop,
+ * booking time into the whole request and the commit (flush + commit), so a
+ * slow request can be traced to the database, the matcher or persistence.
+ */
+@Component
+public class RideMetrics {
+
+    public static final String MATCHING_DURATION = "ridepooling.matching.duration";
+    public static final String MATCHING_QUERY = "ridepooling.matching.query";
+    public static final String MATCHING_EVALUATION = "ridepooling.matching.evaluation";
+    public static final String CANDIDATES_FETCHED = "ridepooling.matching.candidates.fetched";
+    public static final String CANDIDATES_EVALUATED = "ridepooling.matching.candidates.evaluated";
+    public static final String CANDIDATES_REJECTED = "ridepooling.matching.candidates.rejected";
+    public static final String CANDIDATES_FEASIBLE = "ridepooling.matching.candidates.feasible";
+    public static final String PRICING_DURATION = "ridepooling.pricing.duration";
+    public static final String BOOKING_DURATION = "ridepooling.booking.duration";
+    public static final String BOOKING_COMMIT = "ridepooling.booking.commit";
+    public static final String BOOKING_RETRIES = "ridepooling.booking.retries";
+    public static final String BOOKING_CONFLICTS = "ridepooling.booking.conflicts";
+    public static final String RIDES_EXPIRED = "ridepooling.rides.expired";
+    public static final String DETAILS_CACHE = "ridepooling.rides.details.cache";
+    public static final String DETAILS_CACHE_EVICTIONS = "ridepooling.rides.details.cache.evictions";
+    public static final String JOURNAL_FSYNC = "ridepooling.journal.fsync";
+    public static final String ADMISSION = "ridepooling.admission.requests";
+
+    /**
+     * Why a fetched ride was not a feasible match
+     */
+    public enum Rejection { STATUS, WINDOW, CAPACITY, RADIUS, DETOUR }
+
+    /**
+     * Where a booking was retried: inside the transaction, after a failed commit,
+     * or a whole batch falling back to individual bookings
+     */
+    public enum RetryPhase { MATCH, COMMIT, BATCH }
+
+    /**
+     * What a booking lost a race on
+     */
+    public enum Conflict { OPTIMISTIC_LOCK, SEAT_LEDGER }
+
+    /**
+     * How admission control handled a ride request (see RideAdmissionControl)
+     */
+    public enum Admission { ADMITTED, QUEUED, DEGRADED, REJECTED }
+
+    private final Timer matchingDuration;
+    private final Timer matchingQuery;
+    private final Timer matchingEvaluation;
+    private final DistributionSummary candidatesFetched;
+    private final Counter candidatesEvaluated;
+    private final Counter candidatesFeasible;
+    private final Map<Rejection, Counter> rejections = new EnumMap<>(Rejection.class);
+    private final Timer pricingDuration;
+    private final Timer pooledBooking;
+    private final Timer soloBooking;
+    private final Timer committed;
+    private final Timer rolledBack;
+    private final Map<RetryPhase, Counter> retries = new EnumMap<>(RetryPhase.class);
+    private final Map<Conflict, Counter> conflicts = new EnumMap<>(Conflict.class);
+    private final Counter ridesExpired;
+    private final Counter detailsCacheHits;
+    private final Counter detailsCacheMisses;
+    private final Counter detailsCacheEvictions;
+    private final Timer journalFsync;
+    private final Map<Admission, Counter> admissions = new EnumMap<>(Admission.class);
+
+    public RideMetrics(MeterRegistry registry) {
+        matchingDuration = timer(MATCHING_DURATION, "Time to find the best ride for one passenger", registry);
+        matchingQuery = timer(MATCHING_QUERY, "Time to fetch candidate rides (index lookup + load, or SQL)", registry);
+        matchingEvaluation = timer(MATCHING_EVALUATION, "Time to evaluate fetched candidate rides", registry);
+        candidatesFetched = DistributionSummary.builder(CANDIDATES_FETCHED)
+                .description("Candidate rides fetched per match")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(1.0)
+                .maximumExpectedValue(100_000.0)
+                .register(registry);
+        candidatesEvaluated = Counter.builder(CANDIDATES_EVALUATED)
+                .description("Candidate rides checked against the matching constraints")
+                .register(registry);
+        candidatesFeasible = Counter.builder(CANDIDATES_FEASIBLE)
+                .description("Candidate rides that passed every matching constraint")
+                .register(registry);
+        for (Rejection reason : Rejection.values()) {
+            rejections.put(reason, Counter.builder(CANDIDATES_REJECTED)
+                    .description("Candidate rides rejected, by failed constraint")
+                    .tag("reason", tagValue(reason))
+                    .register(registry));
+        }
+
+        pricingDuration = timer(PRICING_DURATION, "Time to calculate one fare", registry);
+
+        pooledBooking = bookingTimer("pooled", registry);
+        soloBooking = bookingTimer("solo", registry);
+        committed = commitTimer("committed", registry);
+        rolledBack = commitTimer("rolled-back", registry);
+        for (RetryPhase phase : RetryPhase.values()) {
+            retries.put(phase, Counter.builder(BOOKING_RETRIES)
+                    .description("Booking attempts repeated after losing a race")
+                    .tag("phase", tagValue(phase))
+                    .register(registry));
+        }
+        for (Conflict conflict : Conflict.values()) {
+            conflicts.put(conflict, Counter.builder(BOOKING_CONFLICTS)
+                    .description("Bookings that lost a race on a ride")
+                    .tag("type", tagValue(conflict))
+                    .register(registry));
+        }
+
+        ridesExpired = Counter.builder(RIDES_EXPIRED)
+                .description("Open rides dispatched because their wait for co-riders ran out")
+                .register(registry);
+
+        detailsCacheHits = detailsCacheCounter("hit", registry);
+        detailsCacheMisses = detailsCacheCounter("miss", registry);
+        detailsCacheEvictions = Counter.builder(DETAILS_CACHE_EVICTIONS)
+                .description("Ride details evicted from the cache by size or age")
+                .register(registry);
+
+        journalFsync = timer(JOURNAL_FSYNC, "Time to fsync one group of ride journal records", registry);
+
+        for (Admission admission : Admission.values()) {
+            admissions.put(admission, Counter.builder(ADMISSION)
+                    .description("Ride requests by admission outcome")
+                    .tag("outcome", tagValue(admission))
+                    .register(registry));
+        }
+    }
+
+    public void recordMatching(long nanos) {
+        matchingDuration.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record the candidate query and how many rides it returned
+     */
+    public void recordCandidateQuery(long nanos, int fetched) {
+        matchingQuery.record(nanos, TimeUnit.NANOSECONDS);
+        candidatesFetched.record(fetched);
+    }
+
+    public void recordEvaluation(long nanos) {
+        matchingEvaluation.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void candidateEvaluated() {
+        candidatesEvaluated.increment();
+    }
+
+    public void candidateFeasible() {
+        candidatesFeasible.increment();
+    }
+
+    public void candidateRejected(Rejection reason) {
+        rejections.get(reason).increment();
+    }
+
+    public void recordPricing(long nanos) {
+        pricingDuration.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record one completed booking request, end to end
+     */
+    public void recordBooking(long nanos, boolean pooled) {
+        (pooled ? pooledBooking : soloBooking).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record the commit of a booking transaction (flush of the pending writes + commit)
+     */
+    public void recordCommit(long nanos, boolean success) {
+        (success ? committed : rolledBack).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void retry(RetryPhase phase) {
+        retries.get(phase).increment();
+    }
+
+    public void conflict(Conflict conflict) {
+        conflicts.get(conflict).increment();
+    }
+
+    public void rideExpired() {
+        ridesExpired.increment();
+    }
+
+    public void detailsCacheLookup(boolean hit) {
+        (hit ? detailsCacheHits : detailsCacheMisses).increment();
+    }
+
+    public void detailsCacheEviction() {
+        detailsCacheEvictions.increment();
+    }
+
+    public void recordJournalFsync(long nanos) {
+        journalFsync.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void admission(Admission admission) {
+        admissions.get(admission).increment();
+    }
+
+    private static Timer timer(String name, String description, MeterRegistry registry) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Timer bookingTimer(String outcome, MeterRegistry registry) {
+        return Timer.builder(BOOKING_DURATION)
+                .description("Time to book one ride request, end to end")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Timer commitTimer(String outcome, MeterRegistry registry) {
+        return Timer.builder(BOOKING_COMMIT)
+                .description("Time to flush and commit a booking transaction")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Counter detailsCacheCounter(String result, MeterRegistry registry) {
+        return Counter.builder(DETAILS_CACHE)
+                .description("Ride details lookups, served from the cache or loaded from the database")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+}
@@ -0,0 +1,142 @@
+package com.airport.ridepooling.service;
+
+import com.airport.ridepooling.dto.RideRequestDTO;
+import com.airport.ridepooling.dto.RideResponseDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Collects incoming ride requests into micro-batches
+ * A batch is flushed when the window elapses or the size limit is reached,
+ * then solved and committed as a whole by the registered batch handler
+ *
+ * Disabled by default - enable with ridepooling.matching.batch.enabled=true
+ */
+@Component
+@Slf4j
+public class RideRequestBatcher {
+
+    @Value("${ridepooling.matching.batch.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ridepooling.matching.batch.window-ms:200}")
+    private long windowMs;
+
+    @Value("${ridepooling.matching.batch.max-size:32}")
+    private int maxBatchSize;
+
+    private final BlockingQueue<PendingRequest> queue = new LinkedBlockingQueue<>();
+
+    private volatile Thread worker;
+
+    private Function<List<RideRequestDTO>, List<RideResponseDTO>> batchHandler;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start the batching worker
+     * @param handler Solves a batch and returns one response per request, in order
+     */
+    public synchronized void start(Function<List<RideRequestDTO>, List<RideResponseDTO>> handler) {
+        if (!enabled || worker != null) {
+            return;
+        }
+
+        this.batchHandler = handler;
+        Thread thread = new Thread(this::run, "ride-request-batcher");
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+
+        log.info("Ride request batching enabled (window: {} ms, max size: {})", windowMs, maxBatchSize);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        Thread thread = worker;
+        worker = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Queue a request for the next batch
+     * @param request Ride request details
+     * @return Future completed when the batch containing this request commits
+     */
+    public CompletableFuture<RideResponseDTO> submit(RideRequestDTO request) {
+        PendingRequest pending = new PendingRequest(request, new CompletableFuture<>());
+        if (worker == null) {
+            pending.result().completeExceptionally(
+                    new IllegalStateException("Ride request batching is not running"));
+            return pending.result();
+        }
+
+        queue.add(pending);
+        return pending.result();
+    }
+
+    private void run() {
+        List<PendingRequest> batch = new ArrayList<>(maxBatchSize);
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                // Block for the first request, then keep collecting until the window closes
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMs);
+
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    PendingRequest next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                dispatch(batch);
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        // Fail anything still waiting so callers are not left hanging on shutdown
+        queue.drainTo(batch);
+        IllegalStateException stopped = new IllegalStateException("Ride request batching stopped");
+        batch.forEach(pending -> pending.result().completeExceptionally(stopped));
+    }
+
+    private void dispatch(List<PendingRequest> batch) {
+        log.debug("Dispatching batch of {} ride requests", batch.size());
+
+        List<RideRequestDTO> requests = batch.stream().map(PendingRequest::request).toList();
+        try {
+            List<RideResponseDTO> responses = batchHandler.apply(requests);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(responses.get(i));
+            }
+        } catch (RuntimeException e) {
+            log.error("Batch of {} ride requests failed", batch.size(), e);
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+        }
+    }
+
+    private record PendingRequest(RideRequestDTO request, CompletableFuture<RideResponseDTO> result) {}
+}
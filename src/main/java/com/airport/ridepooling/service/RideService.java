@@ -3,24 +3,44 @@ package com.airport.ridepooling.service;
 import com.airport.ridepooling.dto.RideDetailsDTO;
 import com.airport.ridepooling.dto.RideRequestDTO;
 import com.airport.ridepooling.dto.RideResponseDTO;
+import com.airport.ridepooling.dto.RideUpdateDTO;
 import com.airport.ridepooling.exception.ResourceNotFoundException;
 import com.airport.ridepooling.model.Passenger;
 import com.airport.ridepooling.model.Ride;
+import com.airport.ridepooling.model.RideSnapshot;
 import com.airport.ridepooling.model.RideStatus;
 import com.airport.ridepooling.repository.PassengerRepository;
 import com.airport.ridepooling.repository.RideRepository;
+import jakarta.annotation.PostConstruct;
 import jakarta.persistence.OptimisticLockException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
 
 /**
  * Main service for ride operations
- * Handles concurrent bookings using optimistic locking with retry mechanism
+ * Handles concurrent bookings with an in-memory seat ledger as the booking
+ * authority, backed by optimistic locking with retry mechanism
  */
 @Service
 @Slf4j
@@ -38,23 +58,287 @@ public class RideService {
     @Autowired
     private PricingService pricingService;
     
+    @Autowired
+    private PendingRideIndex pendingRideIndex;
+    
+    @Autowired
+    private RoutePlanner routePlanner;
+    
+    @Autowired
+    private SeatLedger seatLedger;
+    
+    @Autowired
+    private RideRequestBatcher rideRequestBatcher;
+    
+    @Autowired
+    private PartitionedMatchingEngine matchingEngine;
+    
+    @Autowired
+    private ZoneResolver zoneResolver;
+    
+    @Autowired
+    private ZoneLockStripes zoneLockStripes;
+    
+    @Autowired
+    private RideAdmissionControl rideAdmissionControl;
+    
+    @Autowired
+    private RideUpdatePublisher rideUpdatePublisher;
+    
+    @Autowired
+    private RideStatusCounters rideStatusCounters;
+    
+    @Autowired
+    private SurgeEngine surgeEngine;
+    
+    @Autowired
+    private RideMetrics rideMetrics;
+    
+    @Autowired
+    private RideDetailsCache rideDetailsCache;
+    
+    @Autowired
+    private RideExpiryScheduler rideExpiryScheduler;
+    
+    @Autowired
+    private RideJournal rideJournal;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private AsyncTaskExecutor taskExecutor;
+    
+    @Value("${ridepooling.matching.pickup-window-minutes:15}")
+    private int defaultPickupWindowMinutes = 15;
+    
     private static final int MAX_RETRY_ATTEMPTS = 3;
     
+    // Batch assignment costs (km): going solo must lose to any feasible detour
+    private static final double SOLO_RIDE_COST = 1_000_000.0;
+    private static final double INFEASIBLE_MATCH_COST = 1_000_000_000.0;
+    
     /**
      * Request a new ride
      * Handles concurrent bookings with optimistic locking and retry logic
      * 
      * CONCURRENCY STRATEGY:
-     * - Uses @Transactional for ACID properties
+     * - Each booking runs in its own transaction for ACID properties
      * - Optimistic locking prevents double-booking
      * - Automatic retry on lock conflicts
+     * - Optional partitioned engine: one matching thread per zone partition (see PartitionedMatchingEngine)
+     * - Optional micro-batching solves bursts together (see RideRequestBatcher)
+     * - Optional zone striping books nearby requests one at a time (see ZoneLockStripes)
+     * - Optional admission control bounds bookings per pickup zone and sheds load
+     *   to solo rides, then to 503 (see RideAdmissionControl)
      * 
      * @param request Ride request details
      * @return Response with ride and pricing information
      */
-    @Transactional
     public RideResponseDTO requestRide(RideRequestDTO request) {
-        return requestRideWithRetry(request, 0);
+        long start = System.nanoTime();
+        surgeEngine.recordRequest(request.getPickupLocation());
+        long zone = zoneResolver.zoneOf(request.getPickupLocation());
+        RideResponseDTO response = rideAdmissionControl.call(zone,
+                () -> bookRide(request),
+                () -> requestSoloRide(request));
+        return recordBooking(start, response);
+    }
+    
+    /**
+     * Book a request in the configured booking mode
+     */
+    private RideResponseDTO bookRide(RideRequestDTO request) {
+        if (matchingEngine.isEnabled()) {
+            return await(matchingEngine.submit(request));
+        } else if (rideRequestBatcher.isEnabled()) {
+            return await(rideRequestBatcher.submit(request));
+        } else if (zoneLockStripes.isEnabled()) {
+            return zoneLockStripes.callNear(request.getPickupLocation(), () -> requestRideIndividually(request));
+        }
+        return requestRideIndividually(request);
+    }
+    
+    /**
+     * Book a request as a new solo ride, skipping matching
+     * Degraded mode under overload: one insert and no reads of contended rides;
+     * the ride still joins the matching pool for later requests
+     */
+    private RideResponseDTO requestSoloRide(RideRequestDTO request) {
+        return transactionTemplate.execute(status -> {
+            timeCommit();
+            return createNewRide(createPassengerFromRequest(request));
+        });
+    }
+    
+    /**
+     * Request a ride without blocking the caller
+     * Requests handed to the matching engine or batcher complete when their batch
+     * commits; otherwise (and under admission control, so the request holds its
+     * zone permit while booked) the booking runs on the application task executor
+     * (virtual threads when enabled)
+     */
+    public CompletableFuture<RideResponseDTO> requestRideAsync(RideRequestDTO request) {
+        if (rideAdmissionControl.isEnabled()) {
+            return CompletableFuture.supplyAsync(() -> requestRide(request), taskExecutor);
+        }
+        if (matchingEngine.isEnabled()) {
+            long start = System.nanoTime();
+            surgeEngine.recordRequest(request.getPickupLocation());
+            return matchingEngine.submit(request).thenApply(response -> recordBooking(start, response));
+        }
+        if (rideRequestBatcher.isEnabled()) {
+            long start = System.nanoTime();
+            surgeEngine.recordRequest(request.getPickupLocation());
+            return rideRequestBatcher.submit(request).thenApply(response -> recordBooking(start, response));
+        }
+        return CompletableFuture.supplyAsync(() -> requestRide(request), taskExecutor);
+    }
+    
+    /**
+     * Request rides for a group of passengers (e.g. one flight) in one go
+     * The group is matched set-based against pending rides and against itself,
+     * then persisted in a single transaction
+     * 
+     * @param requests Ride requests of the group
+     * @return One response per request, in order
+     */
+    public List<RideResponseDTO> requestRides(List<RideRequestDTO> requests) {
+        log.info("Processing group request for {} passengers", requests.size());
+        requests.forEach(request -> surgeEngine.recordRequest(request.getPickupLocation()));
+        return processBatch(requests);
+    }
+    
+    @PostConstruct
+    void startBackgroundProcessing() {
+        matchingEngine.start(this::processBatch);
+        rideRequestBatcher.start(this::processBatch);
+        rideExpiryScheduler.start(this::expireRide);
+    }
+    
+    /**
+     * Book a single request greedily in its own transaction
+     * Version conflicts usually surface only at commit (flush), outside the
+     * in-transaction retry, so the whole transaction is retried as well
+     */
+    private RideResponseDTO requestRideIndividually(RideRequestDTO request) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    timeCommit();
+                    return requestRideWithRetry(request, 0);
+                });
+            } catch (ObjectOptimisticLockingFailureException e) {
+                rideMetrics.conflict(RideMetrics.Conflict.OPTIMISTIC_LOCK);
+                if (attempt >= MAX_RETRY_ATTEMPTS) {
+                    throw e;
+                }
+                log.warn("Optimistic lock conflict at commit on attempt {}: {}", attempt, e.getMessage());
+                rideMetrics.retry(RideMetrics.RetryPhase.COMMIT);
+            }
+        }
+    }
+    
+    /**
+     * Solve a batch of requests (engine batch, micro-batch or group) and commit every booking in one transaction
+     * Falls back to individual bookings if the batch loses an optimistic lock race
+     */
+    private List<RideResponseDTO> processBatch(List<RideRequestDTO> requests) {
+        try {
+            return transactionTemplate.execute(status -> {
+                timeCommit();
+                return assignBatch(requests);
+            });
+        } catch (OptimisticLockException | ObjectOptimisticLockingFailureException e) {
+            log.warn("Optimistic lock conflict in batch of {} requests - booking individually: {}",
+                     requests.size(), e.getMessage());
+            rideMetrics.conflict(RideMetrics.Conflict.OPTIMISTIC_LOCK);
+            rideMetrics.retry(RideMetrics.RetryPhase.BATCH);
+            return requests.stream()
+                    .map(this::requestRideIndividually)
+                    .collect(Collectors.toList());
+        }
+    }
+    
+    /**
+     * Assign a batch of passengers to pending rides as a min-cost assignment
+     * 
+     * Columns are the union of feasible rides plus one "solo" option per passenger.
+     * Solo costs more than any feasible detour, so the solver maximizes pooling first
+     * and then minimizes total detour. Passengers left solo may still pool with
+     * rides opened earlier in the same batch.
+     */
+    private List<RideResponseDTO> assignBatch(List<RideRequestDTO> requests) {
+        int batchSize = requests.size();
+        List<Passenger> passengers = requests.stream()
+                .map(this::createPassengerFromRequest)
+                .collect(Collectors.toList());
+        
+        // Step 1: Collect feasible rides for the whole batch into shared columns
+        List<RideSnapshot> rides = new ArrayList<>();
+        Map<Long, Integer> rideColumns = new HashMap<>();
+        List<List<MatchingService.Candidate>> candidatesByPassenger = matchingService.findCandidates(passengers);
+        for (List<MatchingService.Candidate> candidates : candidatesByPassenger) {
+            for (MatchingService.Candidate candidate : candidates) {
+                rideColumns.computeIfAbsent(candidate.ride().id(), id -> {
+                    rides.add(candidate.ride());
+                    return rides.size() - 1;
+                });
+            }
+        }
+        
+        // Step 2: Build the cost matrix and solve
+        double[][] cost = new double[batchSize][rides.size() + batchSize];
+        for (int i = 0; i < batchSize; i++) {
+            Arrays.fill(cost[i], 0, rides.size(), INFEASIBLE_MATCH_COST);
+            Arrays.fill(cost[i], rides.size(), rides.size() + batchSize, SOLO_RIDE_COST);
+            for (MatchingService.Candidate candidate : candidatesByPassenger.get(i)) {
+                cost[i][rideColumns.get(candidate.ride().id())] = candidate.detourCost();
+            }
+        }
+        int[] assignment = MinCostAssignment.solve(cost);
+        
+        // Step 3: Book pooled assignments, then pool leftovers among themselves
+        RideResponseDTO[] responses = new RideResponseDTO[batchSize];
+        List<Integer> soloPassengers = new ArrayList<>();
+        for (int i = 0; i < batchSize; i++) {
+            if (assignment[i] < rides.size()) {
+                responses[i] = tryJoinRide(rides.get(assignment[i]), passengers.get(i));
+            }
+            if (responses[i] == null) {
+                soloPassengers.add(i);
+            }
+        }
+        
+        // Rides opened in this batch are not committed, so no other booking can race for
+        // them: join the managed ride directly and keep them out of the seat ledger, which
+        // picks them up at commit (and never hears of them if the batch rolls back)
+        List<Ride> openedInBatch = new ArrayList<>();
+        for (int i : soloPassengers) {
+            Passenger passenger = passengers.get(i);
+            Ride bestRide = null;
+            double bestDetourCost = Double.MAX_VALUE;
+            for (Ride ride : openedInBatch) {
+                MatchingService.Candidate candidate = matchingService.evaluate(RideSnapshot.of(ride), passenger);
+                if (candidate != null && candidate.detourCost() < bestDetourCost) {
+                    bestRide = ride;
+                    bestDetourCost = candidate.detourCost();
+                }
+            }
+            
+            if (bestRide != null) {
+                responses[i] = addPassengerToExistingRide(bestRide, passenger);
+            } else {
+                responses[i] = createNewRide(passenger);
+                openedInBatch.add(passenger.getRide());
+            }
+        }
+        
+        log.info("Batch of {} requests: {} pooled with pending rides, {} opened new rides",
+                batchSize, batchSize - soloPassengers.size(), openedInBatch.size());
+        
+        return Arrays.asList(responses);
     }
     
     /**
@@ -69,27 +353,38 @@ public class RideService {
             Passenger passenger = createPassengerFromRequest(request);
             
             // Step 2: Try to find a matching ride
-            Ride matchedRide = matchingService.findBestMatch(passenger);
+            RideSnapshot matchedRide = matchingService.findBestMatch(passenger);
             
             if (matchedRide != null) {
-                // Step 3a: Add passenger to existing ride (pooling scenario)
-                return addPassengerToExistingRide(matchedRide, passenger);
-            } else {
-                // Step 3b: Create new ride (solo or no match found)
-                return createNewRide(passenger);
+                // Step 3a: Reserve the seat in the ledger, then add passenger (pooling scenario)
+                RideResponseDTO response = tryJoinRide(matchedRide, passenger);
+                if (response != null) {
+                    return response;
+                }
+                
+                // Lost the seat in memory or the ride moved on since it was read - rematch
+                if (shouldRetry(request, attemptNumber)) {
+                    rideMetrics.retry(RideMetrics.RetryPhase.MATCH);
+                    return requestRideWithRetry(request, attemptNumber + 1);
+                }
             }
             
+            // Step 3b: Create new ride (solo or no match found)
+            return createNewRide(passenger);
+            
         } catch (OptimisticLockException | ObjectOptimisticLockingFailureException e) {
             // Race condition detected - someone else modified the ride
             log.warn("Optimistic lock conflict on attempt {}: {}", 
                      attemptNumber + 1, e.getMessage());
+            rideMetrics.conflict(RideMetrics.Conflict.OPTIMISTIC_LOCK);
             
-            if (attemptNumber < MAX_RETRY_ATTEMPTS - 1) {
+            if (shouldRetry(request, attemptNumber)) {
                 // Retry the operation
                 log.info("Retrying ride request...");
+                rideMetrics.retry(RideMetrics.RetryPhase.MATCH);
                 return requestRideWithRetry(request, attemptNumber + 1);
             } else {
-                log.error("Max retry attempts reached. Creating new ride instead.");
+                log.error("Giving up on retries. Creating new ride instead.");
                 // After max retries, create a new ride
                 Passenger passenger = createPassengerFromRequest(request);
                 return createNewRide(passenger);
@@ -97,14 +392,57 @@ public class RideService {
         }
     }
     
+    /**
+     * Whether a booking that lost a race should match again
+     * Not while requests queue for the pickup zone's admission limit: another
+     * round of matching would only add load, so the passenger gets a new ride
+     */
+    private boolean shouldRetry(RideRequestDTO request, int attemptNumber) {
+        return attemptNumber < MAX_RETRY_ATTEMPTS - 1
+                && !rideAdmissionControl.isCongested(zoneResolver.zoneOf(request.getPickupLocation()));
+    }
+    
+    /**
+     * Reserve a seat in the ledger and, if that succeeds, add the passenger
+     * The managed ride is loaded only here, for the one ride being booked; if it
+     * moved on since the matcher read its snapshot, the match is given up
+     * The reservation is handed back if the transaction rolls back
+     * 
+     * @return The booking response, or null if a concurrent booking took the seat
+     */
+    private RideResponseDTO tryJoinRide(RideSnapshot snapshot, Passenger passenger) {
+        int luggage = passenger.getLuggageCount();
+        if (!seatLedger.tryReserve(snapshot, luggage)) {
+            log.info("Seat on ride {} already reserved by a concurrent booking", snapshot.id());
+            rideMetrics.conflict(RideMetrics.Conflict.SEAT_LEDGER);
+            return null;
+        }
+        
+        Ride ride = rideRepository.findById(snapshot.id()).orElse(null);
+        if (ride == null || !Objects.equals(ride.getVersion(), snapshot.version())) {
+            log.info("Ride {} changed since it was matched - rematching", snapshot.id());
+            seatLedger.release(snapshot.id(), luggage);
+            rideMetrics.conflict(RideMetrics.Conflict.OPTIMISTIC_LOCK);
+            return null;
+        }
+        
+        afterRollback(() -> seatLedger.release(ride.getId(), luggage));
+        return addPassengerToExistingRide(ride, passenger);
+    }
+    
     /**
      * Add passenger to an existing ride
+     * The seat must already be reserved in the ledger
      */
     private RideResponseDTO addPassengerToExistingRide(Ride ride, Passenger passenger) {
         log.info("Adding passenger {} to existing ride {}", 
                  passenger.getName(), ride.getId());
         
+        // Planned route before the join (cached per ride version)
+        RoutePlanner.Route currentRoute = routePlanner.routeFor(ride);
+        
         // Add passenger to ride (this updates version for optimistic locking)
+        RideStatus previousStatus = ride.getStatus();
         ride.addPassenger(passenger);
         ride.setStatus(RideStatus.MATCHED);
         
@@ -112,17 +450,32 @@ public class RideService {
         int passengerCount = ride.getPassengers().size();
         double pooledFare = pricingService.calculateFare(
             passenger.getDirectDistance(), 
-            passengerCount
+            passengerCount,
+            passenger.getPickupLocation()
         );
         
         ride.setFinalFare(pooledFare);
         
-        // Save (optimistic lock version is automatically checked)
-        rideRepository.save(ride);
+        // The ride is managed: its update (with the optimistic lock version check)
+        // and the passenger insert are written together by the single flush at commit
         passengerRepository.save(passenger);
         
+        // Insert the new trip into the planned route so totalDistance is the real route length
+        RoutePlanner.Route route = routePlanner.insert(currentRoute, passenger);
+        ride.setTotalDistance(route.totalDistanceKm());
+        afterCommit(() -> {
+            rideStatusCounters.transition(previousStatus, passengerCount - 1, RideStatus.MATCHED, passengerCount);
+            surgeEngine.recordPooledMatch(passenger.getPickupLocation());
+            pendingRideIndex.remove(ride.getId());
+            routePlanner.store(ride, route);
+            rideExpiryScheduler.schedule(ride); // the join may have narrowed the departure window
+            rideDetailsCache.invalidate(ride);
+            rideJournal.append(RideJournal.EventType.JOINED, ride);
+            rideUpdatePublisher.publish(rideUpdate(ride, RideUpdateDTO.Type.PASSENGER_JOINED, passenger.getId()));
+        });
+        
         // Calculate savings
-        double soloFare = pricingService.calculateFare(passenger.getDirectDistance(), 1);
+        double soloFare = pricingService.calculateFare(passenger.getDirectDistance(), 1, passenger.getPickupLocation());
         double savings = pricingService.calculateSavingsPercentage(soloFare, pooledFare);
         
         log.info("Successfully added passenger to ride {}. Fare: ${}, Savings: {}%",
@@ -155,13 +508,23 @@ public class RideService {
         
         // Calculate pricing
         double distance = passenger.getDirectDistance();
-        double fare = pricingService.calculateFare(distance, 1);
+        double fare = pricingService.calculateFare(distance, 1, passenger.getPickupLocation());
         
         newRide.setTotalDistance(distance);
         newRide.setBaseFare(fare);
         newRide.setFinalFare(fare);
         
         rideRepository.save(newRide);
+        RoutePlanner.Route route = routePlanner.insert(RoutePlanner.Route.EMPTY, passenger);
+        afterCommit(() -> {
+            rideStatusCounters.transition(null, 0, RideStatus.PENDING, 1);
+            seatLedger.register(newRide);
+            routePlanner.store(newRide, route);
+            pendingRideIndex.index(newRide);
+            rideExpiryScheduler.schedule(newRide);
+            rideJournal.append(RideJournal.EventType.CREATED, newRide);
+            rideUpdatePublisher.publish(rideUpdate(newRide, RideUpdateDTO.Type.RIDE_CREATED, passenger.getId()));
+        });
         
         log.info("Created new ride {} with fare ${}", newRide.getId(), fare);
         
@@ -181,13 +544,28 @@ public class RideService {
     
     /**
      * Get ride details by ID
+     * Served from the details cache while the ride is unchanged; not transactional,
+     * so a cache hit never takes a database connection
      */
-    @Transactional(readOnly = true)
     public RideDetailsDTO getRideDetails(Long rideId) {
+        return getVersionedRideDetails(rideId).details();
+    }
+    
+    /**
+     * Get ride details by ID together with the ride version they were built at
+     * Lets callers tag the details (e.g. with an ETag) without a second lookup that
+     * could see a newer version than the details
+     */
+    public VersionedRideDetails getVersionedRideDetails(Long rideId) {
+        RideDetailsCache.Entry cached = rideDetailsCache.getEntry(rideId);
+        if (cached != null) {
+            return new VersionedRideDetails(cached.version(), cached.details());
+        }
+        
         Ride ride = rideRepository.findById(rideId)
                 .orElseThrow(() -> new ResourceNotFoundException("Ride not found with id: " + rideId));
         
-        return RideDetailsDTO.builder()
+        RideDetailsDTO details = RideDetailsDTO.builder()
                 .rideId(ride.getId())
                 .status(ride.getStatus())
                 .passengers(ride.getPassengers().stream()
@@ -204,7 +582,25 @@ public class RideService {
                 .totalDistance(ride.getTotalDistance())
                 .finalFare(ride.getFinalFare())
                 .createdAt(ride.getCreatedAt())
+                .scheduledTime(ride.getScheduledTime())
+                .scheduledUntil(ride.getScheduledUntil())
                 .build();
+        rideDetailsCache.put(ride.getVersion(), details);
+        return new VersionedRideDetails(ride.getVersion(), details);
+    }
+    
+    /**
+     * Current version of a ride, for conditional requests
+     * Taken from the details cache, else a single-column query that does not
+     * load the ride or its passengers
+     */
+    public Long getRideVersion(Long rideId) {
+        Long version = rideDetailsCache.version(rideId);
+        if (version != null) {
+            return version;
+        }
+        return rideRepository.findVersionById(rideId)
+                .orElseThrow(() -> new ResourceNotFoundException("Ride not found with id: " + rideId));
     }
     
     /**
@@ -223,7 +619,9 @@ public class RideService {
             throw new IllegalStateException("Passenger is not associated with any ride");
         }
         
-        // Remove passenger from ride
+        // Remove passenger from ride and its stops from the planned route
+        RideStatus previousStatus = ride.getStatus();
+        RoutePlanner.Route route = routePlanner.without(routePlanner.routeFor(ride), passengerId);
         ride.removePassenger(passenger);
         
         // If no passengers left, cancel the entire ride
@@ -231,11 +629,14 @@ public class RideService {
             ride.setStatus(RideStatus.CANCELLED);
             log.info("Ride {} cancelled - no passengers remaining", ride.getId());
         } else {
+            ride.setTotalDistance(route.totalDistanceKm());
+            
             // Recalculate pricing for remaining passengers
             int remainingPassengers = ride.getPassengers().size();
             double newFare = pricingService.calculateFare(
                 ride.getTotalDistance(), 
-                remainingPassengers
+                remainingPassengers,
+                ride.getPrimaryPassenger().getPickupLocation()
             );
             ride.setFinalFare(newFare);
             log.info("Ride {} updated - {} passengers remaining, new fare: ${}",
@@ -245,10 +646,181 @@ public class RideService {
         passenger.setRide(null);
         passengerRepository.save(passenger);
         rideRepository.save(ride);
+        afterCommit(() -> {
+            int remaining = ride.getPassengers().size();
+            rideStatusCounters.transition(previousStatus, remaining + 1, ride.getStatus(), remaining);
+            if (ride.getStatus() == RideStatus.CANCELLED) {
+                seatLedger.remove(ride.getId());
+                routePlanner.evict(ride.getId());
+                rideExpiryScheduler.cancel(ride.getId());
+            } else {
+                seatLedger.release(ride.getId(), passenger.getLuggageCount());
+                routePlanner.store(ride, route);
+                rideExpiryScheduler.schedule(ride); // the departure window may have widened
+            }
+            pendingRideIndex.index(ride);
+            rideDetailsCache.invalidate(ride);
+            rideJournal.append(RideJournal.EventType.CANCELLED, ride);
+            rideUpdatePublisher.publish(rideUpdate(ride, RideUpdateDTO.Type.PASSENGER_CANCELLED, passengerId));
+        });
         
         log.info("Successfully cancelled passenger {} from ride {}", passengerId, ride.getId());
     }
     
+    /**
+     * Dispatch an open ride whose wait for co-riders has run out
+     * It goes out with whoever is on board and leaves the matching pool at once;
+     * if a booking changed the ride concurrently, expiry is retried on the next tick
+     */
+    private void expireRide(Long rideId) {
+        try {
+            transactionTemplate.executeWithoutResult(transaction -> {
+                Ride ride = rideRepository.findById(rideId).orElse(null);
+                if (ride == null
+                        || (ride.getStatus() != RideStatus.PENDING && ride.getStatus() != RideStatus.MATCHED)) {
+                    return;
+                }
+                log.info("Ride {} waited too long for co-riders - dispatching with {} passenger(s)",
+                        rideId, ride.getPassengers().size());
+                changeStatus(ride, RideStatus.IN_PROGRESS);
+                afterCommit(rideMetrics::rideExpired);
+            });
+        } catch (ObjectOptimisticLockingFailureException e) {
+            log.info("Ride {} changed while expiring - retrying", rideId);
+            rideExpiryScheduler.retry(rideId);
+        }
+    }
+    
+    /**
+     * Apply a status change to a managed ride; in-memory structures follow after commit
+     */
+    private void changeStatus(Ride ride, RideStatus status) {
+        Long rideId = ride.getId();
+        log.info("Ride {} status change: {} -> {}", rideId, ride.getStatus(), status);
+        
+        RideStatus previousStatus = ride.getStatus();
+        ride.setStatus(status);
+        rideRepository.save(ride);
+        afterCommit(() -> {
+            int passengers = ride.getPassengers().size();
+            rideStatusCounters.transition(previousStatus, passengers, status, passengers);
+            if (status == RideStatus.COMPLETED || status == RideStatus.CANCELLED
+                    || status == RideStatus.IN_PROGRESS) {
+                seatLedger.remove(rideId);
+                rideExpiryScheduler.cancel(rideId);
+                routePlanner.evict(rideId);
+            }
+            pendingRideIndex.index(ride);
+            rideDetailsCache.invalidate(ride);
+            rideJournal.append(RideJournal.EventType.STATUS_CHANGED, ride);
+            rideUpdatePublisher.publish(rideUpdate(ride, RideUpdateDTO.Type.STATUS_CHANGED, null));
+        });
+    }
+    
+    /**
+     * Snapshot of a committed ride change for event subscribers
+     */
+    private RideUpdateDTO rideUpdate(Ride ride, RideUpdateDTO.Type type, Long passengerId) {
+        return RideUpdateDTO.builder()
+                .type(type)
+                .rideId(ride.getId())
+                .rideVersion(ride.getVersion())
+                .passengerId(passengerId)
+                .status(ride.getStatus())
+                .passengerIds(ride.getPassengers().stream().map(Passenger::getId).collect(Collectors.toList()))
+                .availableSeats(ride.getAvailableSeats())
+                .totalDistance(ride.getTotalDistance())
+                .finalFare(ride.getFinalFare())
+                .timestamp(LocalDateTime.now())
+                .build();
+    }
+    
+    /**
+     * Record the end-to-end time of a completed booking
+     */
+    private RideResponseDTO recordBooking(long startNanos, RideResponseDTO response) {
+        rideMetrics.recordBooking(System.nanoTime() - startNanos, Boolean.TRUE.equals(response.getIsPooled()));
+        return response;
+    }
+    
+    /**
+     * Time the commit of the surrounding transaction
+     * Hibernate flushes the pending writes inside the commit, so this is the
+     * persistence cost of a booking as opposed to the matching that preceded it
+     */
+    private void timeCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private long commitStart;
+            
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                commitStart = System.nanoTime();
+            }
+            
+            @Override
+            public void afterCompletion(int status) {
+                if (commitStart != 0) {
+                    rideMetrics.recordCommit(System.nanoTime() - commitStart, status == STATUS_COMMITTED);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Wait for an asynchronously processed request, surfacing its original exception
+     */
+    private RideResponseDTO await(CompletableFuture<RideResponseDTO> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Run an action if the surrounding transaction rolls back
+     * Used to hand back in-memory reservations the database never confirmed
+     */
+    private void afterRollback(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    action.run();
+                }
+            }
+        });
+    }
+    
+    /**
+     * Run an action once the surrounding transaction has committed
+     * In-memory matching structures must never see rolled-back state
+     */
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+    
     /**
      * Helper method to create Passenger entity from DTO
      */
@@ -260,6 +832,21 @@ public class RideService {
         passenger.setDropoffLocation(request.getDropoffLocation());
         passenger.setLuggageCount(request.getLuggageCount());
         passenger.setMaxDetourMinutes(request.getMaxDetourMinutes());
+        
+        // Pickup window: from the requested time (never in the past) for the requested length
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime earliest = request.getPickupTime() == null || request.getPickupTime().isBefore(now)
+                ? now : request.getPickupTime();
+        int windowMinutes = request.getPickupWindowMinutes() != null
+                ? request.getPickupWindowMinutes() : defaultPickupWindowMinutes;
+        passenger.setEarliestPickup(earliest);
+        passenger.setLatestPickup(earliest.plusMinutes(windowMinutes));
         return passenger;
     }
+    
+    /**
+     * Ride details and the ride version they were built at
+     */
+    public record VersionedRideDetails(Long version, RideDetailsDTO details) {
+    }
 }
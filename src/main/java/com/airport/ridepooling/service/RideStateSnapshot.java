@@ -0,0 +1,207 @@
+package com.airport.ridepooling.service;
+
+import com.airport.ridepooling.model.GeoPoint;
+import com.airport.ridepooling.model.RideStatus;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of the live ride matching state, tied to a ride journal position
+ * Holds every open ride as recorded by the journal (coordinates, capacity, window,
+ * version) plus its planned route when one was cached for that version. Restoring
+ * the snapshot and replaying only the journal records after its position gives the
+ * same state as a full replay. The versions of recently closed rides are kept too,
+ * so a late, older record in the journal tail cannot reopen a ride closed before
+ * the snapshot.
+ *
+ * Written to a temporary file, fsynced and atomically renamed, so a crash leaves
+ * either the previous snapshot or the new one. Read through a read-only memory
+ * mapping and decoded straight from the mapped pages (no read into a heap copy).
+ *
+ * Layout (big-endian):
+ * header: magic(8) journalId(8) journalPosition(8) rideCount(4) closedCount(4)
+ * ride:   rideId(8) version(8) status(1) availableSeats(1) availableLuggage(1)
+ *         anchorLat(8) anchorLon(8) createdAt(8) scheduledTime(8) scheduledUntil(8)
+ *         stopCount(2, -1 = no route) [totalDistanceKm(8) nextPassengerKey(8) stops]
+ * stop:   passengerKey(8) passengerId(8) lat(8) lon(8) pickup(1) maxOnboardKm(8)
+ * closed: rideId(8) version(8), oldest first
+ * trailer: crc32(4) of everything before it
+ *
+ * COMPLEXITY ANALYSIS:
+ * - Write / read: O(n + s + c) where n = live rides, s = route stops, c = closed rides kept
+ * - Space Complexity: O(n + s + c)
+ */
+public final class RideStateSnapshot {
+
+    private static final long MAGIC = 0x524944534E415032L; // "RIDSNAP2"
+    private static final int HEADER_SIZE = 32;
+    // Fixed part of each record, per the layout above
+    private static final int RIDE_SIZE = 2 * Long.BYTES + 3 + 5 * Long.BYTES + Short.BYTES;
+    private static final int ROUTE_SIZE = Double.BYTES + Long.BYTES;
+    private static final int STOP_SIZE = 4 * Long.BYTES + 1 + Double.BYTES;
+    private static final int CLOSED_SIZE = 2 * Long.BYTES;
+    private static final long NO_ID = Long.MIN_VALUE;
+    private static final RideStatus[] STATUSES = RideStatus.values();
+
+    private RideStateSnapshot() {
+    }
+
+    /**
+     * One open ride and its planned route (null when none was cached)
+     */
+    public record Entry(RideJournal.RideState state, RoutePlanner.Route route) {
+    }
+
+    /**
+     * Snapshot contents and the journal position it was taken at
+     * closedVersions maps recently closed rides to their closing version, oldest first
+     */
+    public record Contents(long journalId, long journalPosition, List<Entry> entries,
+                           Map<Long, Long> closedVersions) {
+    }
+
+    /**
+     * Atomically replace the snapshot file
+     */
+    public static void write(Path file, Contents contents) throws IOException {
+        int size = HEADER_SIZE + Integer.BYTES;
+        for (Entry entry : contents.entries()) {
+            size += RIDE_SIZE + (entry.route() != null ? ROUTE_SIZE + STOP_SIZE * entry.route().stops().size() : 0);
+        }
+        size += CLOSED_SIZE * contents.closedVersions().size();
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+        buffer.putLong(MAGIC)
+                .putLong(contents.journalId())
+                .putLong(contents.journalPosition())
+                .putInt(contents.entries().size())
+                .putInt(contents.closedVersions().size());
+        for (Entry entry : contents.entries()) {
+            encode(entry, buffer);
+        }
+        contents.closedVersions().forEach((rideId, version) -> buffer.putLong(rideId).putLong(version));
+        CRC32 crc = new CRC32();
+        crc.update(buffer.flip());
+        buffer.limit(size).putInt((int) crc.getValue()).flip();
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Load a snapshot file
+     * @return The snapshot, or null if there is none or it is damaged
+     */
+    public static Contents read(Path file) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE + Integer.BYTES || size > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int bodySize = (int) size - Integer.BYTES;
+            CRC32 crc = new CRC32();
+            crc.update(mapped.slice(0, bodySize));
+            if (mapped.getLong(0) != MAGIC || mapped.getInt(bodySize) != (int) crc.getValue()) {
+                return null;
+            }
+
+            long journalId = mapped.getLong(8);
+            long journalPosition = mapped.getLong(16);
+            int rideCount = mapped.getInt(24);
+            int closedCount = mapped.getInt(28);
+            mapped.position(HEADER_SIZE);
+            List<Entry> entries = new ArrayList<>(rideCount);
+            for (int i = 0; i < rideCount; i++) {
+                entries.add(decode(mapped));
+            }
+            Map<Long, Long> closedVersions = new LinkedHashMap<>();
+            for (int i = 0; i < closedCount; i++) {
+                closedVersions.put(mapped.getLong(), mapped.getLong());
+            }
+            return new Contents(journalId, journalPosition, entries, closedVersions);
+        }
+    }
+
+    private static void encode(Entry entry, ByteBuffer buffer) {
+        RideJournal.RideState state = entry.state();
+        buffer.putLong(state.rideId())
+                .putLong(state.version())
+                .put((byte) state.status().ordinal())
+                .put((byte) state.availableSeats())
+                .put((byte) state.availableLuggage())
+                .putDouble(state.anchorLatitude())
+                .putDouble(state.anchorLongitude())
+                .putLong(RideJournal.toMillis(state.createdAt()))
+                .putLong(RideJournal.toMillis(state.scheduledTime()))
+                .putLong(RideJournal.toMillis(state.scheduledUntil()));
+
+        RoutePlanner.Route route = entry.route();
+        if (route == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        buffer.putShort((short) route.stops().size())
+                .putDouble(route.totalDistanceKm())
+                .putLong(route.nextPassengerKey());
+        for (RoutePlanner.Stop stop : route.stops()) {
+            buffer.putLong(stop.passengerKey())
+                    .putLong(stop.passengerId() != null ? stop.passengerId() : NO_ID)
+                    .putDouble(stop.point().getLatitude())
+                    .putDouble(stop.point().getLongitude())
+                    .put((byte) (stop.pickup() ? 1 : 0))
+                    .putDouble(stop.maxOnboardKm());
+        }
+    }
+
+    private static Entry decode(ByteBuffer buffer) {
+        long rideId = buffer.getLong();
+        long version = buffer.getLong();
+        RideStatus status = STATUSES[buffer.get()];
+        int availableSeats = buffer.get();
+        int availableLuggage = buffer.get();
+        RideJournal.RideState state = new RideJournal.RideState(rideId, version, status,
+                availableSeats, availableLuggage, buffer.getDouble(), buffer.getDouble(),
+                RideJournal.fromMillis(buffer.getLong()), RideJournal.fromMillis(buffer.getLong()),
+                RideJournal.fromMillis(buffer.getLong()));
+
+        int stopCount = buffer.getShort();
+        if (stopCount < 0) {
+            return new Entry(state, null);
+        }
+        double totalDistanceKm = buffer.getDouble();
+        long nextPassengerKey = buffer.getLong();
+        List<RoutePlanner.Stop> stops = new ArrayList<>(stopCount);
+        for (int i = 0; i < stopCount; i++) {
+            long passengerKey = buffer.getLong();
+            long passengerId = buffer.getLong();
+            GeoPoint point = new GeoPoint(buffer.getDouble(), buffer.getDouble());
+            boolean pickup = buffer.get() == 1;
+            stops.add(new RoutePlanner.Stop(passengerKey, passengerId != NO_ID ? passengerId : null,
+                    point, pickup, buffer.getDouble()));
+        }
+        return new Entry(state, new RoutePlanner.Route(List.copyOf(stops), totalDistanceKm, version, nextPassengerKey));
+    }
+}
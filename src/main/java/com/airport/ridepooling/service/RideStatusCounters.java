@@ -0,0 +1,124 @@
+package com.airport.ridepooling.service;
+
+import com.airport.ridepooling.model.RideStatus;
+import com.airport.ridepooling.repository.RideRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-memory count of rides per status, fed by committed ride lifecycle transitions
+ * Replaces COUNT queries on the pricing hot path. Also counts the passengers
+ * seated on open (PENDING or MATCHED) rides, for the average occupancy gauge.
+ *
+ * Counters are striped (LongAdder), so concurrent bookings do not contend on one
+ * cache line. They are reconciled against the database on startup and
+ * periodically, which corrects drift from other instances or missed transitions.
+ *
+ * COMPLEXITY ANALYSIS:
+ * - Transition: O(1), contention-free
+ * - Read: O(stripes)
+ */
+@Component
+@Slf4j
+public class RideStatusCounters {
+
+    @Autowired
+    private RideRepository rideRepository;
+
+    private final Map<RideStatus, LongAdder> counters = new EnumMap<>(RideStatus.class);
+    private final LongAdder seatedPassengers = new LongAdder();
+
+    public RideStatusCounters() {
+        for (RideStatus status : RideStatus.values()) {
+            counters.put(status, new LongAdder());
+        }
+    }
+
+    /**
+     * Record a committed status change
+     * @param from Previous status, or null for a new ride
+     * @param to New status, or null for a deleted ride
+     */
+    public void transition(RideStatus from, RideStatus to) {
+        if (from == to) {
+            return;
+        }
+        if (from != null) {
+            counters.get(from).decrement();
+        }
+        if (to != null) {
+            counters.get(to).increment();
+        }
+    }
+
+    /**
+     * Record a committed status change that may also seat or drop passengers
+     * @param from Previous status, or null for a new ride
+     * @param passengersBefore Passengers on the ride before the change
+     * @param to New status, or null for a deleted ride
+     * @param passengersAfter Passengers on the ride after the change
+     */
+    public void transition(RideStatus from, int passengersBefore, RideStatus to, int passengersAfter) {
+        transition(from, to);
+        long seated = (isOpen(to) ? passengersAfter : 0) - (isOpen(from) ? passengersBefore : 0);
+        if (seated != 0) {
+            seatedPassengers.add(seated);
+        }
+    }
+
+    /**
+     * Current number of rides in a status
+     */
+    public long count(RideStatus status) {
+        return Math.max(counters.get(status).sum(), 0);
+    }
+
+    /**
+     * Average passengers per open ride, 0 when there are none
+     */
+    public double averageOccupancy() {
+        long openRides = count(RideStatus.PENDING) + count(RideStatus.MATCHED);
+        return openRides == 0 ? 0.0 : (double) Math.max(seatedPassengers.sum(), 0) / openRides;
+    }
+
+    /**
+     * Align the counters with the database
+     * Transitions committed while the COUNT query runs may be off by one until
+     * the next reconciliation
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${ridepooling.pricing.demand-reconcile-interval-ms:30000}",
+               initialDelayString = "${ridepooling.pricing.demand-reconcile-interval-ms:30000}")
+    public void reconcile() {
+        Map<RideStatus, Long> actual = new EnumMap<>(RideStatus.class);
+        long seated = 0;
+        for (RideRepository.StatusCount statusCount : rideRepository.countGroupedByStatus()) {
+            actual.put(statusCount.getStatus(), statusCount.getCount());
+            if (isOpen(statusCount.getStatus())) {
+                seated += statusCount.getSeated();
+            }
+        }
+        seatedPassengers.add(seated - seatedPassengers.sum());
+
+        for (RideStatus status : RideStatus.values()) {
+            LongAdder counter = counters.get(status);
+            long drift = actual.getOrDefault(status, 0L) - counter.sum();
+            if (drift != 0) {
+                counter.add(drift);
+                log.debug("Reconciled {} ride count by {}", status, drift);
+            }
+        }
+    }
+
+    private static boolean isOpen(RideStatus status) {
+        return status == RideStatus.PENDING || status == RideStatus.MATCHED;
+    }
+}
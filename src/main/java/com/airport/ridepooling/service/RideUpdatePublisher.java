@@ -0,0 +1,140 @@
+package com.airport.ridepooling.service;
+
+import com.airport.ridepooling.dto.RideUpdateDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of server-sent event subscribers per topic (ride, passenger or ticket)
+ * Events are written on the application task executor so a slow client
+ * never holds up the booking thread that produced the event
+ *
+ * COMPLEXITY ANALYSIS:
+ * - Subscribe/unsubscribe: O(1)
+ * - Publish: O(s) where s = subscribers of the affected topics
+ */
+@Component
+@Slf4j
+public class RideUpdatePublisher {
+
+    public static final String UPDATE_EVENT = "ride-update";
+
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private AsyncTaskExecutor taskExecutor;
+
+    @Value("${ridepooling.async.sse-timeout-ms:1800000}")
+    private long emitterTimeoutMs = 1_800_000;
+
+    // topic -> open event streams
+    private final Map<String, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+
+    public static String rideTopic(Long rideId) {
+        return "ride:" + rideId;
+    }
+
+    public static String passengerTopic(Long passengerId) {
+        return "passenger:" + passengerId;
+    }
+
+    public static String ticketTopic(String ticketId) {
+        return "ticket:" + ticketId;
+    }
+
+    /**
+     * Open a new event stream on a topic
+     */
+    public SseEmitter subscribe(String topic) {
+        SseEmitter emitter = newEmitter();
+        register(topic, emitter);
+        return emitter;
+    }
+
+    /**
+     * Create an event stream with the configured timeout, not yet on any topic
+     */
+    public SseEmitter newEmitter() {
+        return new SseEmitter(emitterTimeoutMs);
+    }
+
+    /**
+     * Attach an existing event stream to a topic
+     * The stream is detached automatically when it completes, times out or fails
+     */
+    public void register(String topic, SseEmitter emitter) {
+        subscribers.computeIfAbsent(topic, key -> ConcurrentHashMap.newKeySet()).add(emitter);
+        Runnable detach = () -> unregister(topic, emitter);
+        emitter.onCompletion(detach);
+        emitter.onTimeout(detach);
+        emitter.onError(error -> detach.run());
+    }
+
+    /**
+     * Detach and return every stream of a topic (e.g. to move them to another topic)
+     */
+    public List<SseEmitter> drain(String topic) {
+        Set<SseEmitter> emitters = subscribers.remove(topic);
+        return emitters != null ? new ArrayList<>(emitters) : List.of();
+    }
+
+    /**
+     * Push a committed ride change to the ride's subscribers and to every
+     * passenger it concerns (current passengers plus the one who triggered it)
+     */
+    public void publish(RideUpdateDTO update) {
+        List<SseEmitter> targets = new ArrayList<>(subscribersOf(rideTopic(update.getRideId())));
+        if (update.getPassengerId() != null && !update.getPassengerIds().contains(update.getPassengerId())) {
+            targets.addAll(subscribersOf(passengerTopic(update.getPassengerId())));
+        }
+        for (Long passengerId : update.getPassengerIds()) {
+            targets.addAll(subscribersOf(passengerTopic(passengerId)));
+        }
+
+        if (!targets.isEmpty()) {
+            taskExecutor.execute(() -> targets.forEach(emitter -> send(emitter, UPDATE_EVENT, update)));
+        }
+    }
+
+    /**
+     * Write one event to a stream, closing the stream if the client is gone
+     */
+    public void send(SseEmitter emitter, String eventName, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(eventName).data(data));
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping event stream: {}", e.getMessage());
+            emitter.completeWithError(e);
+        }
+    }
+
+    /**
+     * Number of open event streams across all topics
+     */
+    public int subscriberCount() {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private Set<SseEmitter> subscribersOf(String topic) {
+        return subscribers.getOrDefault(topic, Set.of());
+    }
+
+    private void unregister(String topic, SseEmitter emitter) {
+        subscribers.computeIfPresent(topic, (key, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+}
@@ -0,0 +1,339 @@
+package com.airport.ridepooling.service;
+
+import com.airport.ridepooling.model.GeoPoint;
+import com.airport.ridepooling.model.Ride;
+import com.airport.ridepooling.model.RideSnapshot;
+import com.airport.ridepooling.model.Trip;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Multi-stop route planner for pooled rides
+ * Keeps an ordered pickup/dropoff stop list per ride and scores new passengers
+ * by the cheapest feasible insertion of their pickup/dropoff pair
+ *
+ * ALGORITHM COMPLEXITY ANALYSIS:
+ * - Insertion search: O(s² × p) where s = stops on the route, p = passengers on board
+ * - Route lookup: O(1) from cache, O(p × s²) rebuild on a cache miss
+ * - Approach: Cheapest insertion heuristic - existing stop order is never reshuffled
+ * 
+ * The insertion search ranks positions with the equirectangular approximation;
+ * the route length of the chosen plan is recomputed with exact Haversine.
+ */
+@Component
+@Slf4j
+public class RoutePlanner {
+
+    private static final double AVERAGE_CITY_SPEED_KMH = 30.0;
+    private static final double EPSILON_KM = 1e-9;
+
+    // ride id -> last committed route, tagged with the ride version it was planned for
+    private final Map<Long, Route> routes = new ConcurrentHashMap<>();
+
+    /**
+     * Get the planned route of a ride
+     * Uses the cached route when it was planned for the ride's current version,
+     * otherwise rebuilds it by inserting passengers in booking order
+     */
+    public Route routeFor(Ride ride) {
+        return routeFor(ride.getId(), ride.getVersion(), ride.getPassengers());
+    }
+
+    /**
+     * Get the planned route of a ride from the matching read model
+     */
+    public Route routeFor(RideSnapshot ride) {
+        return routeFor(ride.id(), ride.version(), ride.trips());
+    }
+
+    private Route routeFor(Long rideId, Long version, List<? extends Trip> trips) {
+        if (rideId != null) {
+            Route cached = routes.get(rideId);
+            if (cached != null
+                    && Objects.equals(cached.rideVersion(), version)
+                    && cached.stops().size() == trips.size() * 2) {
+                return cached;
+            }
+        }
+
+        Route route = Route.EMPTY;
+        for (Trip trip : trips) {
+            route = insert(route, trip);
+        }
+        return route;
+    }
+
+    /**
+     * Insert a passenger at the cheapest feasible position
+     * Falls back to appending the trip when no insertion respects every tolerance
+     */
+    public Route insert(Route route, Trip passenger) {
+        Insertion insertion = findInsertion(route, passenger);
+        if (insertion == null) {
+            log.debug("No feasible insertion for passenger {} - appending trip", passenger.getId());
+            insertion = new Insertion(route.stops().size(), route.stops().size(),
+                    appendCost(route, passenger));
+        }
+        return apply(route, passenger, insertion);
+    }
+
+    /**
+     * Find the cheapest insertion of the passenger's pickup/dropoff pair
+     * that keeps every passenger (existing and new) within their detour tolerance
+     *
+     * @param route The current route
+     * @param passenger The passenger to insert
+     * @return The best insertion, or null if no position is feasible
+     */
+    public Insertion findInsertion(Route route, Trip passenger) {
+        List<Stop> stops = route.stops();
+        int stopCount = stops.size();
+        GeoPoint pickup = passenger.getPickupLocation().toGeoPoint();
+        GeoPoint dropoff = passenger.getDropoffLocation().toGeoPoint();
+        double tripDistance = pickup.approxDistanceKm(dropoff);
+        double maxOnboardKm = maxOnboardDistance(passenger);
+
+        if (stopCount == 0) {
+            return new Insertion(0, 0, tripDistance);
+        }
+
+        // Cumulative distance along the route at each stop
+        double[] position = new double[stopCount];
+        for (int i = 1; i < stopCount; i++) {
+            position[i] = position[i - 1] + stops.get(i - 1).point().approxDistanceKm(stops.get(i).point());
+        }
+
+        // Span of every passenger already on the route: pickup index -> dropoff index
+        int[] dropoffIndex = new int[stopCount];
+        for (int i = 0; i < stopCount; i++) {
+            if (stops.get(i).pickup()) {
+                for (int j = i + 1; j < stopCount; j++) {
+                    if (!stops.get(j).pickup() && stops.get(j).passengerKey() == stops.get(i).passengerKey()) {
+                        dropoffIndex[i] = j;
+                        break;
+                    }
+                }
+            }
+        }
+
+        // Added distance when inserting a single stop into each gap
+        double[] pickupGapCost = new double[stopCount + 1];
+        double[] dropoffGapCost = new double[stopCount + 1];
+        for (int gap = 0; gap <= stopCount; gap++) {
+            pickupGapCost[gap] = gapCost(stops, gap, pickup);
+            dropoffGapCost[gap] = gapCost(stops, gap, dropoff);
+        }
+
+        Insertion best = null;
+        for (int pickupGap = 0; pickupGap <= stopCount; pickupGap++) {
+            for (int dropoffGap = pickupGap; dropoffGap <= stopCount; dropoffGap++) {
+                double added;
+                double onboard;
+                if (pickupGap == dropoffGap) {
+                    added = pairGapCost(stops, pickupGap, pickup, dropoff, tripDistance);
+                    onboard = tripDistance;
+                } else {
+                    added = pickupGapCost[pickupGap] + dropoffGapCost[dropoffGap];
+                    onboard = pickup.approxDistanceKm(stops.get(pickupGap).point())
+                            + position[dropoffGap - 1] - position[pickupGap]
+                            + stops.get(dropoffGap - 1).point().approxDistanceKm(dropoff);
+                }
+
+                if (best != null && added >= best.addedDistanceKm()) {
+                    continue;
+                }
+                // Extra driving before the new pickup counts as delay too
+                double waitDetour = pickupGap == 0 ? 0.0
+                        : position[pickupGap - 1]
+                          + stops.get(pickupGap - 1).point().approxDistanceKm(pickup)
+                          - stops.get(0).point().approxDistanceKm(pickup);
+                if (onboard + waitDetour > maxOnboardKm + EPSILON_KM) {
+                    continue;
+                }
+                if (!existingPassengersStayWithinTolerance(stops, position, dropoffIndex,
+                        pickupGap, dropoffGap, pickupGapCost, dropoffGapCost, added)) {
+                    continue;
+                }
+
+                best = new Insertion(pickupGap, dropoffGap, added);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Build the route that results from applying an insertion
+     */
+    public Route apply(Route route, Trip passenger, Insertion insertion) {
+        long passengerKey = route.nextPassengerKey();
+        double maxOnboardKm = maxOnboardDistance(passenger);
+        Stop pickup = new Stop(passengerKey, passenger.getId(),
+                passenger.getPickupLocation().toGeoPoint(), true, maxOnboardKm);
+        Stop dropoff = new Stop(passengerKey, passenger.getId(),
+                passenger.getDropoffLocation().toGeoPoint(), false, maxOnboardKm);
+
+        List<Stop> stops = new ArrayList<>(route.stops());
+        stops.add(insertion.dropoffGap(), dropoff);
+        stops.add(insertion.pickupGap(), pickup);
+
+        return new Route(List.copyOf(stops), routeDistance(stops), null, passengerKey + 1);
+    }
+
+    /**
+     * Build the route without a passenger's stops, keeping the remaining order
+     */
+    public Route without(Route route, Long passengerId) {
+        List<Stop> stops = route.stops().stream()
+                .filter(stop -> !Objects.equals(stop.passengerId(), passengerId))
+                .toList();
+        return new Route(stops, routeDistance(stops), null, route.nextPassengerKey());
+    }
+
+    /**
+     * Remember the committed route of a ride, tagged with its current version
+     * Call after commit so the version matches what later readers will load
+     */
+    public void store(Ride ride, Route route) {
+        if (ride.getId() == null) {
+            return;
+        }
+        routes.put(ride.getId(), new Route(route.stops(), route.totalDistanceKm(),
+                ride.getVersion(), route.nextPassengerKey()));
+    }
+
+    /**
+     * Cached route of a ride (tagged with the version it was planned for), or null
+     */
+    public Route cachedRoute(Long rideId) {
+        return routes.get(rideId);
+    }
+
+    /**
+     * Put back a route recovered from a snapshot, keeping its version tag
+     */
+    public void restore(Long rideId, Route route) {
+        routes.put(rideId, route);
+    }
+
+    /**
+     * Drop the cached route of a ride that left the matching pool for good
+     */
+    public void evict(Long rideId) {
+        routes.remove(rideId);
+    }
+
+    private boolean existingPassengersStayWithinTolerance(List<Stop> stops, double[] position, int[] dropoffIndex,
+                                                          int pickupGap, int dropoffGap,
+                                                          double[] pickupGapCost, double[] dropoffGapCost,
+                                                          double pairCost) {
+        for (int i = 0; i < stops.size(); i++) {
+            Stop stop = stops.get(i);
+            if (!stop.pickup()) {
+                continue;
+            }
+
+            // Any stop inserted before this passenger's dropoff delays their arrival,
+            // whether they are already on board or still waiting to be picked up
+            int end = dropoffIndex[i];
+            double extra = 0.0;
+            if (pickupGap == dropoffGap) {
+                if (pickupGap <= end) {
+                    extra = pairCost;
+                }
+            } else {
+                if (pickupGap <= end) {
+                    extra += pickupGapCost[pickupGap];
+                }
+                if (dropoffGap <= end) {
+                    extra += dropoffGapCost[dropoffGap];
+                }
+            }
+
+            if (extra > 0 && position[end] - position[i] + extra > stop.maxOnboardKm() + EPSILON_KM) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double gapCost(List<Stop> stops, int gap, GeoPoint point) {
+        if (gap == 0) {
+            return point.approxDistanceKm(stops.get(0).point());
+        }
+        GeoPoint previous = stops.get(gap - 1).point();
+        if (gap == stops.size()) {
+            return previous.approxDistanceKm(point);
+        }
+        GeoPoint next = stops.get(gap).point();
+        return previous.approxDistanceKm(point) + point.approxDistanceKm(next) - previous.approxDistanceKm(next);
+    }
+
+    private static double pairGapCost(List<Stop> stops, int gap, GeoPoint pickup, GeoPoint dropoff,
+                                      double tripDistance) {
+        if (gap == 0) {
+            return tripDistance + dropoff.approxDistanceKm(stops.get(0).point());
+        }
+        GeoPoint previous = stops.get(gap - 1).point();
+        if (gap == stops.size()) {
+            return previous.approxDistanceKm(pickup) + tripDistance;
+        }
+        GeoPoint next = stops.get(gap).point();
+        return previous.approxDistanceKm(pickup) + tripDistance
+                + dropoff.approxDistanceKm(next) - previous.approxDistanceKm(next);
+    }
+
+    private static double appendCost(Route route, Trip passenger) {
+        GeoPoint pickup = passenger.getPickupLocation().toGeoPoint();
+        double tripDistance = pickup.approxDistanceKm(passenger.getDropoffLocation().toGeoPoint());
+        if (route.stops().isEmpty()) {
+            return tripDistance;
+        }
+        GeoPoint last = route.stops().get(route.stops().size() - 1).point();
+        return last.approxDistanceKm(pickup) + tripDistance;
+    }
+
+    /**
+     * Exact (Haversine) driving distance along the stop list
+     */
+    private static double routeDistance(List<Stop> stops) {
+        double distance = 0.0;
+        for (int i = 1; i < stops.size(); i++) {
+            distance += stops.get(i - 1).point().distanceKm(stops.get(i).point());
+        }
+        return distance;
+    }
+
+    /**
+     * Longest acceptable in-vehicle distance: direct trip plus detour tolerance
+     */
+    private static double maxOnboardDistance(Trip passenger) {
+        double toleranceKm = (passenger.getMaxDetourMinutes() / 60.0) * AVERAGE_CITY_SPEED_KMH;
+        return passenger.getDirectDistance() + toleranceKm;
+    }
+
+    /**
+     * A pickup or dropoff on a route
+     * passengerKey pairs the two stops of a trip even before the passenger has an id
+     */
+    public record Stop(long passengerKey, Long passengerId, GeoPoint point, boolean pickup,
+                       double maxOnboardKm) {}
+
+    /**
+     * Ordered stop list of a ride with its total driving distance
+     */
+    public record Route(List<Stop> stops, double totalDistanceKm, Long rideVersion, long nextPassengerKey) {
+        public static final Route EMPTY = new Route(List.of(), 0.0, null, 0L);
+    }
+
+    /**
+     * Gap positions (in the current stop list) for a new pickup and dropoff
+     * Equal gaps mean the dropoff directly follows the pickup
+     */
+    public record Insertion(int pickupGap, int dropoffGap, double addedDistanceKm) {}
+}
@@ -0,0 +1,287 @@
+package com.airport.ridepooling.service;
+
+import com.airport.ridepooling.model.Location;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Per-zone demand and supply over a sliding time window
+ * Demand = ride requests picked up in the zone; supply = requests served by
+ * joining an existing ride. Each zone keeps a ring buffer of time buckets, so a
+ * queue at one terminal does not raise prices at another and old demand ages out.
+ *
+ * Every bucket slot is one long packing the bucket epoch with its count, so a
+ * slot is rolled over and incremented with a single CAS: updates are lock-free
+ * and allocation-free once a zone exists.
+ *
+ * Idle-zone eviction does not lock writers either. A writer registers on the
+ * zone's window (a CAS on its writer count) before incrementing; the sweep retires
+ * an idle window by swapping a zero writer count for a retired mark, so a window
+ * is only retired while nobody is writing to it and no writer gets in afterwards.
+ * Writers that find a window retired record on the zone's next window instead, and
+ * counts that reached the window between the idle check and its retirement are
+ * carried over to that next window.
+ *
+ * COMPLEXITY ANALYSIS:
+ * - Record: O(1), lock-free
+ * - Lookup: O(b) where b = buckets per window (fixed), lock-free
+ * - Space Complexity: O(z × b) where z = zones with recent activity
+ */
+@Component
+public class SurgeEngine {
+
+    private static final int COUNT_BITS = 24;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    @Autowired
+    private ZoneResolver zoneResolver;
+
+    @Value("${ridepooling.pricing.surge.window-seconds:300}")
+    private long windowSeconds = 300;
+
+    @Value("${ridepooling.pricing.surge.buckets:30}")
+    private int bucketCount = 30;
+
+    private LongSupplier clock = System::currentTimeMillis;
+
+    private long bucketMillis;
+    private long startMillis;
+
+    private final Map<Long, ZoneWindow> zones = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        bucketMillis = Math.max(windowSeconds * 1000 / bucketCount, 1);
+        startMillis = clock.getAsLong();
+    }
+
+    /**
+     * Record a ride request picked up at the location
+     */
+    public void recordRequest(Location pickup) {
+        ZoneWindow window = enterWindow(zoneResolver.zoneOf(pickup));
+        try {
+            window.demand.add(currentEpoch(), 1);
+        } finally {
+            window.exit();
+        }
+    }
+
+    /**
+     * Record a request served by pooling into an existing ride
+     */
+    public void recordPooledMatch(Location pickup) {
+        ZoneWindow window = enterWindow(zoneResolver.zoneOf(pickup));
+        try {
+            window.supply.add(currentEpoch(), 1);
+        } finally {
+            window.exit();
+        }
+    }
+
+    /**
+     * Register as a writer on the zone's live window, creating it if needed
+     * The map is only written on a miss or when the window was just retired
+     */
+    private ZoneWindow enterWindow(long zone) {
+        while (true) {
+            ZoneWindow window = zones.get(zone);
+            if (window == null) {
+                window = zones.computeIfAbsent(zone, z -> new ZoneWindow(bucketCount));
+            }
+            if (window.enter()) {
+                return window;
+            }
+            zones.remove(zone, window); // Retired by the sweep - help drop it and take the next one
+        }
+    }
+
+    /**
+     * Demand and supply of the zone containing the location, over the window
+     */
+    public ZoneDemand demandAt(Location location) {
+        long zone = zoneResolver.zoneOf(location);
+        return snapshot(zone, zones.get(zone), currentEpoch());
+    }
+
+    /**
+     * Demand and supply of every zone with activity in the window
+     */
+    public List<ZoneDemand> activeZones() {
+        long epoch = currentEpoch();
+        List<ZoneDemand> active = new ArrayList<>();
+        zones.forEach((zone, window) -> {
+            ZoneDemand demand = snapshot(zone, window, epoch);
+            if (demand.requests() > 0 || demand.pooledMatches() > 0) {
+                active.add(demand);
+            }
+        });
+        return active;
+    }
+
+    /**
+     * Drop zones whose window has fully expired
+     * A window is only retired while no writer is on it; events that landed after
+     * the idle check are carried over to the zone's next window
+     */
+    @Scheduled(fixedDelayString = "${ridepooling.pricing.surge.cleanup-interval-ms:60000}")
+    public void evictIdleZones() {
+        long epoch = currentEpoch();
+        zones.forEach((zone, window) -> {
+            if (!isIdle(zone, window, epoch) || !window.retire()) {
+                return;
+            }
+            zones.remove(zone, window);
+            if (!isIdle(zone, window, epoch)) {
+                ZoneWindow next = enterWindow(zone);
+                try {
+                    next.demand.addAll(window.demand);
+                    next.supply.addAll(window.supply);
+                } finally {
+                    next.exit();
+                }
+            }
+        });
+    }
+
+    private boolean isIdle(long zone, ZoneWindow window, long epoch) {
+        ZoneDemand demand = snapshot(zone, window, epoch);
+        return demand.requests() == 0 && demand.pooledMatches() == 0;
+    }
+
+    private ZoneDemand snapshot(long zone, ZoneWindow window, long epoch) {
+        if (window == null) {
+            return new ZoneDemand(zone, 0, 0);
+        }
+        return new ZoneDemand(zone, window.demand.sum(epoch), window.supply.sum(epoch));
+    }
+
+    private long currentEpoch() {
+        return (clock.getAsLong() - startMillis) / bucketMillis;
+    }
+
+    /**
+     * Demand and supply rings of one zone
+     * writers counts the threads updating the rings, or is -1 once the window is retired
+     */
+    private static final class ZoneWindow {
+        private final BucketRing demand;
+        private final BucketRing supply;
+        private final AtomicInteger writers = new AtomicInteger();
+
+        ZoneWindow(int buckets) {
+            demand = new BucketRing(buckets);
+            supply = new BucketRing(buckets);
+        }
+
+        /**
+         * Register a writer
+         * @return false if the window is retired
+         */
+        boolean enter() {
+            while (true) {
+                int current = writers.get();
+                if (current < 0) {
+                    return false;
+                }
+                if (writers.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void exit() {
+            writers.decrementAndGet();
+        }
+
+        /**
+         * Retire the window if no writer is on it; no writer can enter afterwards
+         */
+        boolean retire() {
+            return writers.compareAndSet(0, -1);
+        }
+    }
+
+    /**
+     * Ring buffer of counts, one slot per bucket epoch
+     * Slot value = (epoch << COUNT_BITS) | count
+     */
+    private static final class BucketRing {
+        private final AtomicLongArray slots;
+
+        BucketRing(int buckets) {
+            slots = new AtomicLongArray(buckets);
+        }
+
+        void add(long epoch, long count) {
+            int slot = (int) (epoch % slots.length());
+            while (true) {
+                long current = slots.get(slot);
+                long slotEpoch = current >>> COUNT_BITS;
+                long updated;
+                if (slotEpoch == epoch) {
+                    if ((current & COUNT_MASK) == COUNT_MASK) {
+                        return; // Saturated
+                    }
+                    updated = current + Math.min(count, COUNT_MASK - (current & COUNT_MASK));
+                } else if (slotEpoch < epoch) {
+                    updated = (epoch << COUNT_BITS) | Math.min(count, COUNT_MASK); // Roll the slot over to the new bucket
+                } else {
+                    return; // A newer bucket already owns the slot
+                }
+                if (slots.compareAndSet(slot, current, updated)) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Add every bucket of another ring (one no longer written to)
+         */
+        void addAll(BucketRing other) {
+            for (int i = 0; i < other.slots.length(); i++) {
+                long value = other.slots.get(i);
+                if ((value & COUNT_MASK) > 0) {
+                    add(value >>> COUNT_BITS, value & COUNT_MASK);
+                }
+            }
+        }
+
+        long sum(long epoch) {
+            long oldestEpoch = epoch - slots.length() + 1;
+            long total = 0;
+            for (int i = 0; i < slots.length(); i++) {
+                long value = slots.get(i);
+                long slotEpoch = value >>> COUNT_BITS;
+                if (slotEpoch >= oldestEpoch && slotEpoch <= epoch) {
+                    total += value & COUNT_MASK;
+                }
+            }
+            return total;
+        }
+    }
+
+    /**
+     * Windowed demand of one zone
+     */
+    public record ZoneDemand(long zone, long requests, long pooledMatches) {
+
+        /**
+         * Requests that had to open a new ride - the unmet pooling demand
+         */
+        public long unmatchedRequests() {
+            return Math.max(requests - pooledMatches, 0);
+        }
+    }
+}
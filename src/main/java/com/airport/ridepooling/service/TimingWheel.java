@@ -0,0 +1,140 @@
+package com.airport.ridepooling.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hierarchical timing wheel of deadlines keyed by id
+ * Level 0 has one slot per tick; each higher level has slots 64 times coarser.
+ * A timer sits at the lowest level whose slot still separates its deadline from
+ * the current tick, and is cascaded one level down whenever the wheel enters
+ * its slot, so it reaches level 0 exactly on the tick it is due.
+ *
+ * Deadlines are never fired early: a timer fires on the first tick at or after
+ * its deadline. Deadlines beyond the top level's range wait in its slots and are
+ * re-placed until they come into range.
+ *
+ * Thread-safe (all operations hold the wheel's monitor; each one is short).
+ *
+ * ALGORITHM COMPLEXITY ANALYSIS:
+ * - Schedule / cancel: O(1)
+ * - Advance: O(t + e) where t = ticks elapsed, e = timers expired or cascaded
+ * - Space Complexity: O(n + levels × 64) where n = scheduled timers
+ */
+public final class TimingWheel {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4; // 64^4 ticks: about 194 days at 1 s ticks
+
+    private final long tickMillis;
+    private final Set<Long>[][] slots;
+    private final Map<Long, Long> deadlineTicks = new HashMap<>();
+    private long currentTick;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public TimingWheel(long tickMillis, long nowMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("Tick must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+        this.slots = new Set[LEVELS][SLOTS];
+        for (Set<Long>[] level : slots) {
+            for (int slot = 0; slot < SLOTS; slot++) {
+                level[slot] = new HashSet<>();
+            }
+        }
+    }
+
+    /**
+     * Schedule (or reschedule) the timer of an id
+     * Deadlines already passed fire on the next tick
+     */
+    public synchronized void schedule(long id, long deadlineMillis) {
+        cancel(id);
+        long tick = Math.max(Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis), currentTick + 1);
+        deadlineTicks.put(id, tick);
+        slotFor(tick).add(id);
+    }
+
+    /**
+     * Drop the timer of an id, if any
+     */
+    public synchronized void cancel(long id) {
+        Long tick = deadlineTicks.remove(id);
+        if (tick != null) {
+            slotFor(tick).remove(id);
+        }
+    }
+
+    /**
+     * Move the wheel forward to the given time
+     * @return Ids whose deadline has been reached, in deadline order (by tick)
+     */
+    public synchronized List<Long> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<Long> expired = new ArrayList<>();
+        if (deadlineTicks.isEmpty()) {
+            currentTick = Math.max(currentTick, targetTick);
+            return expired;
+        }
+
+        while (currentTick < targetTick) {
+            currentTick++;
+            // Top-down, so timers cascading through several levels on one tick land in level 0
+            for (int level = LEVELS - 1; level >= 1; level--) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(slots[level][digit(currentTick, level)]);
+                }
+            }
+
+            Set<Long> due = slots[0][digit(currentTick, 0)];
+            for (Long id : due) {
+                deadlineTicks.remove(id);
+                expired.add(id);
+            }
+            due.clear();
+        }
+        return expired;
+    }
+
+    /**
+     * Number of scheduled timers
+     */
+    public synchronized int size() {
+        return deadlineTicks.size();
+    }
+
+    private void cascade(Set<Long> slot) {
+        if (slot.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(slot);
+        slot.clear();
+        for (Long id : ids) {
+            slotFor(deadlineTicks.get(id)).add(id);
+        }
+    }
+
+    /**
+     * Slot of a deadline, relative to the current tick
+     * Lowest level at which the deadline and the current tick share every higher digit
+     */
+    private Set<Long> slotFor(long tick) {
+        int level = 0;
+        while (level < LEVELS - 1
+                && (tick >>> (SLOT_BITS * (level + 1))) != (currentTick >>> (SLOT_BITS * (level + 1)))) {
+            level++;
+        }
+        return slots[level][digit(tick, level)];
+    }
+
+    private static int digit(long tick, int level) {
+        return (int) ((tick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+    }
+}
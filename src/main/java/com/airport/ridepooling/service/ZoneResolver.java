@@ -0,0 +1,53 @@
+package com.airport.ridepooling.service;
+
+import com.airport.ridepooling.model.Location;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Maps pickup locations to pickup zones
+ * A zone is a square lat/lon grid cell (ridepooling.zones.cell-size-km),
+ * small enough to separate airport terminals from each other
+ *
+ * Zone ids are stable longs (lat index in the high word, lon index in the low word)
+ * and can be spread over a fixed number of stripes or partitions with stripeOf.
+ */
+@Component
+public class ZoneResolver {
+
+    private static final double KM_PER_DEGREE = 111.32;
+
+    @Value("${ridepooling.zones.cell-size-km:2.0}")
+    private double cellSizeKm = 2.0;
+
+    /**
+     * Get the zone containing a location
+     * Time Complexity: O(1)
+     */
+    public long zoneOf(Location location) {
+        double cellSizeDegrees = cellSizeKm / KM_PER_DEGREE;
+        long latIndex = (long) Math.floor(location.getLatitude() / cellSizeDegrees);
+        long lonIndex = (long) Math.floor(location.getLongitude() / cellSizeDegrees);
+        return (latIndex << 32) | (lonIndex & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Get the center point of a zone (for reporting)
+     */
+    public Location centerOf(long zone) {
+        double cellSizeDegrees = cellSizeKm / KM_PER_DEGREE;
+        long latIndex = zone >> 32;
+        long lonIndex = (int) zone;
+        return new Location((latIndex + 0.5) * cellSizeDegrees, (lonIndex + 0.5) * cellSizeDegrees);
+    }
+
+    /**
+     * Spread zones evenly over a fixed number of stripes
+     * Neighbouring zones land on different stripes, so one busy terminal
+     * does not drag its neighbours onto the same stripe
+     */
+    public static int stripeOf(long zone, int stripes) {
+        long mixed = zone * 0x9E3779B97F4A7C15L;
+        return (int) Math.floorMod(mixed ^ (mixed >>> 32), (long) stripes);
+    }
+}
@@ -0,0 +1,65 @@
+package com.airport.ridepooling;
+
+import com.airport.ridepooling.model.GeoPoint;
+import com.airport.ridepooling.model.Location;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for GeoPoint distance math
+ */
+public class GeoPointTest {
+
+    private final Location airport = new Location(28.5562, 77.1000);
+    private final Location downtown = new Location(28.7041, 77.1025);
+    private final Location gurgaon = new Location(28.4595, 77.0266);
+
+    /**
+     * Test that the cached Haversine matches the reference atan2 formula
+     */
+    @Test
+    public void testDistanceKm_MatchesReferenceHaversine() {
+        assertEquals(referenceHaversine(airport, downtown), airport.distanceTo(downtown), 1e-9);
+        assertEquals(referenceHaversine(airport, gurgaon), airport.distanceTo(gurgaon), 1e-9);
+    }
+
+    /**
+     * Test that the equirectangular approximation stays within 0.1% at city scale
+     */
+    @Test
+    public void testApproxDistanceKm_WithinTolerance() {
+        double exact = airport.distanceTo(gurgaon);
+        double approx = airport.approxDistanceTo(gurgaon);
+
+        assertEquals(exact, approx, exact * 0.001);
+
+        GeoPoint from = airport.toGeoPoint();
+        GeoPoint to = gurgaon.toGeoPoint();
+        assertEquals(approx * approx, from.approxDistanceSquaredKm(to), 1e-6);
+    }
+
+    /**
+     * Test that changing coordinates invalidates the cached point
+     */
+    @Test
+    public void testToGeoPoint_InvalidatedBySetter() {
+        Location location = new Location(28.5562, 77.1000);
+        assertEquals(0.0, location.distanceTo(airport), 1e-9);
+
+        location.setLatitude(28.7041);
+        location.setLongitude(77.1025);
+
+        assertEquals(0.0, location.distanceTo(downtown), 1e-9);
+    }
+
+    private static double referenceHaversine(Location from, Location to) {
+        double dLat = Math.toRadians(to.getLatitude() - from.getLatitude());
+        double dLon = Math.toRadians(to.getLongitude() - from.getLongitude());
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                   Math.cos(Math.toRadians(from.getLatitude())) *
+                   Math.cos(Math.toRadians(to.getLatitude())) *
+                   Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 6371.0 * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
@@ -3,20 +3,29 @@ package com.airport.ridepooling;
 import com.airport.ridepooling.model.Location;
 import com.airport.ridepooling.model.Passenger;
 import com.airport.ridepooling.model.Ride;
+import com.airport.ridepooling.model.RideSnapshot;
 import com.airport.ridepooling.model.RideStatus;
 import com.airport.ridepooling.repository.RideRepository;
 import com.airport.ridepooling.service.MatchingService;
+import com.airport.ridepooling.service.PendingRideIndex;
+import com.airport.ridepooling.service.RideMetrics;
+import com.airport.ridepooling.service.RoutePlanner;
+import com.airport.ridepooling.service.SeatLedger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
-import java.util.ArrayList;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 /**
@@ -28,6 +37,18 @@ public class MatchingServiceTest {
     @Mock
     private RideRepository rideRepository;
     
+    @Spy
+    private PendingRideIndex pendingRideIndex = new PendingRideIndex();
+    
+    @Spy
+    private RoutePlanner routePlanner = new RoutePlanner();
+    
+    @Spy
+    private SeatLedger seatLedger = new SeatLedger();
+    
+    @Spy
+    private RideMetrics rideMetrics = new RideMetrics(new SimpleMeterRegistry());
+    
     @InjectMocks
     private MatchingService matchingService;
     
@@ -40,6 +61,7 @@ public class MatchingServiceTest {
         airportLocation = new Location(28.5562, 77.1000);
         downtownLocation = new Location(28.7041, 77.1025);
         gurgaonLocation = new Location(28.4595, 77.0266);
+        ReflectionTestUtils.setField(matchingService, "spatialIndexEnabled", true);
     }
     
     /**
@@ -56,13 +78,14 @@ public class MatchingServiceTest {
             new Location(28.7050, 77.1030)  // Near downtown
         );
         
-        when(rideRepository.findAvailableRidesByStatus(RideStatus.PENDING))
-            .thenReturn(List.of(existingRide));
+        pendingRideIndex.index(existingRide);
+        when(rideRepository.findSnapshotsById(List.of(existingRide.getId())))
+            .thenReturn(List.of(RideSnapshot.of(existingRide)));
         
-        Ride match = matchingService.findBestMatch(newPassenger);
+        RideSnapshot match = matchingService.findBestMatch(newPassenger);
         
         assertNotNull(match);
-        assertEquals(existingRide.getId(), match.getId());
+        assertEquals(existingRide.getId(), match.id());
     }
     
     /**
@@ -79,10 +102,11 @@ public class MatchingServiceTest {
             gurgaonLocation // Different destination
         );
         
-        when(rideRepository.findAvailableRidesByStatus(RideStatus.PENDING))
-            .thenReturn(List.of(existingRide));
+        pendingRideIndex.index(existingRide);
+        when(rideRepository.findSnapshotsById(List.of(existingRide.getId())))
+            .thenReturn(List.of(RideSnapshot.of(existingRide)));
         
-        Ride match = matchingService.findBestMatch(newPassenger);
+        RideSnapshot match = matchingService.findBestMatch(newPassenger);
         
         // Should not match due to different destination
         assertNull(match);
@@ -93,8 +117,9 @@ public class MatchingServiceTest {
      */
     @Test
     public void testFindBestMatch_NoMatch_InsufficientCapacity() {
-        // Create ride with no available seats
+        // Create ride that filled up after it was indexed
         Ride fullRide = createRide(airportLocation, downtownLocation);
+        pendingRideIndex.index(fullRide);
         fullRide.setAvailableSeats(0);
         
         Passenger newPassenger = createPassenger("David", 
@@ -102,14 +127,36 @@ public class MatchingServiceTest {
             new Location(28.7050, 77.1030)
         );
         
-        when(rideRepository.findAvailableRidesByStatus(RideStatus.PENDING))
-            .thenReturn(List.of(fullRide));
+        when(rideRepository.findSnapshotsById(List.of(fullRide.getId())))
+            .thenReturn(List.of(RideSnapshot.of(fullRide)));
         
-        Ride match = matchingService.findBestMatch(newPassenger);
+        RideSnapshot match = matchingService.findBestMatch(newPassenger);
         
         assertNull(match);
     }
     
+    /**
+     * Test that a seat reserved by an in-flight booking hides the ride
+     */
+    @Test
+    public void testFindBestMatch_NoMatch_LastSeatReservedInLedger() {
+        Ride ride = createRide(airportLocation, downtownLocation);
+        ride.setAvailableSeats(1);
+        assertTrue(seatLedger.tryReserve(RideSnapshot.of(ride), 1));
+        
+        Passenger newPassenger = createPassenger("Kim", 
+            new Location(28.5570, 77.1010),
+            new Location(28.7050, 77.1030)
+        );
+        
+        pendingRideIndex.index(ride);
+        when(rideRepository.findSnapshotsById(List.of(ride.getId())))
+            .thenReturn(List.of(RideSnapshot.of(ride)));
+        
+        assertNull(matchingService.findBestMatch(newPassenger));
+        assertFalse(seatLedger.tryReserve(RideSnapshot.of(ride), 1));
+    }
+    
     /**
      * Test that matching respects luggage constraints
      */
@@ -124,14 +171,67 @@ public class MatchingServiceTest {
         );
         heavyLuggage.setLuggageCount(3); // Needs 3 spaces
         
-        when(rideRepository.findAvailableRidesByStatus(RideStatus.PENDING))
-            .thenReturn(List.of(ride));
+        pendingRideIndex.index(ride);
+        when(rideRepository.findSnapshotsById(List.of(ride.getId())))
+            .thenReturn(List.of(RideSnapshot.of(ride)));
         
-        Ride match = matchingService.findBestMatch(heavyLuggage);
+        RideSnapshot match = matchingService.findBestMatch(heavyLuggage);
         
         assertNull(match);
     }
     
+    /**
+     * Test that every passenger already on the ride is checked, not only the first
+     */
+    @Test
+    public void testFindBestMatch_NoMatch_SecondPassengerToleranceExceeded() {
+        Ride ride = createRide(airportLocation, downtownLocation);
+        
+        // Second passenger on the same route who accepts almost no detour
+        Passenger strictPassenger = createPassenger("Heidi", airportLocation, downtownLocation);
+        strictPassenger.setMaxDetourMinutes(1);
+        ride.addPassenger(strictPassenger);
+        
+        // Dropoff ~4 km east of the route forces a detour on everyone on board
+        Passenger newPassenger = createPassenger("Ivan", 
+            new Location(28.5570, 77.1010),
+            new Location(28.6300, 77.1430)
+        );
+        
+        pendingRideIndex.index(ride);
+        when(rideRepository.findSnapshotsById(List.of(ride.getId())))
+            .thenReturn(List.of(RideSnapshot.of(ride)));
+        
+        assertNotNull(routePlanner.findInsertion(
+            routePlanner.routeFor(createRide(airportLocation, downtownLocation)), newPassenger));
+        assertNull(matchingService.findBestMatch(newPassenger));
+    }
+    
+    /**
+     * Test that without the spatial index, candidates come from the bounding-box query
+     */
+    @Test
+    public void testFindBestMatch_BoundingBoxQueryWhenIndexDisabled() {
+        ReflectionTestUtils.setField(matchingService, "spatialIndexEnabled", false);
+        Ride existingRide = createRide(airportLocation, downtownLocation);
+        
+        Passenger newPassenger = createPassenger("Judy", 
+            new Location(28.5570, 77.1010),
+            new Location(28.7050, 77.1030)
+        );
+        
+        when(rideRepository.findCandidateSnapshots(eq(RideStatus.PENDING), eq(1),
+                doubleThat(minLat -> minLat < 28.5570), doubleThat(maxLat -> maxLat > 28.5570),
+                doubleThat(minLon -> minLon < 77.1010), doubleThat(maxLon -> maxLon > 77.1010),
+                isNull(), isNull()))
+            .thenReturn(List.of(RideSnapshot.of(existingRide)));
+        
+        RideSnapshot match = matchingService.findBestMatch(newPassenger);
+        
+        assertNotNull(match);
+        verify(rideRepository, never()).findSnapshotsById(any());
+    }
+    
     /**
      * Test empty ride list returns null
      */
@@ -139,12 +239,60 @@ public class MatchingServiceTest {
     public void testFindBestMatch_NoActiveRides() {
         Passenger passenger = createPassenger("Frank", airportLocation, downtownLocation);
         
-        when(rideRepository.findAvailableRidesByStatus(RideStatus.PENDING))
-            .thenReturn(new ArrayList<>());
+        RideSnapshot match = matchingService.findBestMatch(passenger);
+        
+        assertNull(match);
+        verifyNoInteractions(rideRepository);
+    }
+    
+    /**
+     * Test that rides anchored outside the search neighbourhood are never loaded
+     */
+    @Test
+    public void testFindBestMatch_DistantRideNotLoaded() {
+        Ride distantRide = createRide(gurgaonLocation, downtownLocation);
+        pendingRideIndex.index(distantRide);
+        
+        Passenger passenger = createPassenger("Grace", airportLocation, downtownLocation);
         
-        Ride match = matchingService.findBestMatch(passenger);
+        RideSnapshot match = matchingService.findBestMatch(passenger);
         
         assertNull(match);
+        verifyNoInteractions(rideRepository);
+    }
+    
+    /**
+     * Test that only rides departing within the pickup window are considered
+     */
+    @Test
+    public void testFindBestMatch_PickupWindows() {
+        LocalDateTime now = LocalDateTime.now();
+        Ride preBookedRide = createRide(airportLocation, downtownLocation);
+        Passenger primaryPassenger = preBookedRide.getPrimaryPassenger();
+        preBookedRide.removePassenger(primaryPassenger);
+        primaryPassenger.setEarliestPickup(now.plusHours(3));
+        primaryPassenger.setLatestPickup(now.plusHours(3).plusMinutes(15));
+        preBookedRide.addPassenger(primaryPassenger);
+        pendingRideIndex.index(preBookedRide);
+        
+        // Immediate pickup: the pre-booked ride is in a later time bucket and never loaded
+        Passenger immediate = createPassenger("Heidi", airportLocation, downtownLocation);
+        immediate.setEarliestPickup(now);
+        immediate.setLatestPickup(now.plusMinutes(15));
+        assertNull(matchingService.findBestMatch(immediate));
+        verifyNoInteractions(rideRepository);
+        
+        // Same flight, overlapping window: matched
+        Passenger sameFlight = createPassenger("Ivan", airportLocation, downtownLocation);
+        sameFlight.setEarliestPickup(now.plusHours(3).plusMinutes(10));
+        sameFlight.setLatestPickup(now.plusHours(3).plusMinutes(25));
+        when(rideRepository.findSnapshotsById(List.of(preBookedRide.getId())))
+            .thenReturn(List.of(RideSnapshot.of(preBookedRide)));
+        
+        RideSnapshot match = matchingService.findBestMatch(sameFlight);
+        
+        assertNotNull(match);
+        assertEquals(now.plusHours(3), match.scheduledTime());
     }
     
     // Helper methods
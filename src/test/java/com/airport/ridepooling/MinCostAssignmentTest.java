@@ -0,0 +1,58 @@
+package com.airport.ridepooling;
+
+import com.airport.ridepooling.service.MinCostAssignment;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MinCostAssignment
+ */
+public class MinCostAssignmentTest {
+
+    /**
+     * Test that the solver beats the greedy row-by-row choice
+     */
+    @Test
+    public void testSolve_PrefersGlobalOptimumOverGreedy() {
+        // Greedy would give row 0 column 0 (cost 1) and leave row 1 with cost 10
+        double[][] cost = {
+            {1, 2},
+            {1, 10}
+        };
+
+        int[] assignment = MinCostAssignment.solve(cost);
+
+        assertArrayEquals(new int[]{1, 0}, assignment);
+    }
+
+    /**
+     * Test that every row gets a distinct column in a rectangular matrix
+     */
+    @Test
+    public void testSolve_RectangularMatrix() {
+        double[][] cost = {
+            {4, 1, 3, 100},
+            {2, 0, 5, 100},
+            {3, 2, 2, 100}
+        };
+
+        int[] assignment = MinCostAssignment.solve(cost);
+
+        // Optimal total is 1 + 2 + 2 = 5
+        double total = 0;
+        for (int row = 0; row < assignment.length; row++) {
+            total += cost[row][assignment[row]];
+        }
+        assertEquals(5.0, total, 1e-9);
+        assertEquals(3, java.util.Arrays.stream(assignment).distinct().count());
+    }
+
+    /**
+     * Test that an empty batch yields an empty assignment
+     */
+    @Test
+    public void testSolve_Empty() {
+        assertEquals(0, MinCostAssignment.solve(new double[0][0]).length);
+    }
+}
@@ -0,0 +1,223 @@
+package com.airport.ridepooling;
+
+import com.airport.ridepooling.dto.RideRequestDTO;
+import com.airport.ridepooling.dto.RideResponseDTO;
+import com.airport.ridepooling.model.Location;
+import com.airport.ridepooling.service.PartitionedMatchingEngine;
+import com.airport.ridepooling.service.ZoneResolver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PartitionedMatchingEngine
+ */
+public class PartitionedMatchingEngineTest {
+
+    private final PartitionedMatchingEngine engine = new PartitionedMatchingEngine();
+
+    @AfterEach
+    public void tearDown() {
+        engine.stop();
+    }
+
+    /**
+     * Test that concurrent producers get their own response back, and that each
+     * zone's batches run on one thread at a time, in small rings that fill up
+     */
+    @Test
+    public void testSubmit_OneWriterPerZone() throws Exception {
+        Map<Long, AtomicInteger> activeByZone = new ConcurrentHashMap<>();
+        Map<Long, String> ownerByZone = new ConcurrentHashMap<>();
+        AtomicInteger overlaps = new AtomicInteger();
+        ZoneResolver zones = new ZoneResolver();
+
+        ReflectionTestUtils.setField(engine, "zoneResolver", zones);
+        ReflectionTestUtils.setField(engine, "enabled", true);
+        ReflectionTestUtils.setField(engine, "partitionCount", 3);
+        ReflectionTestUtils.setField(engine, "ringSize", 8);
+        engine.start(requests -> {
+            List<RideResponseDTO> responses = new ArrayList<>();
+            for (RideRequestDTO request : requests) {
+                long zone = zones.zoneOf(request.getPickupLocation());
+                ownerByZone.merge(zone, Thread.currentThread().getName(),
+                        (owner, current) -> owner.equals(current) ? owner : "several");
+                if (activeByZone.computeIfAbsent(zone, z -> new AtomicInteger()).incrementAndGet() > 1) {
+                    overlaps.incrementAndGet();
+                }
+                responses.add(RideResponseDTO.builder().message(request.getName()).build());
+                activeByZone.get(zone).decrementAndGet();
+            }
+            return responses;
+        });
+
+        int producers = 8;
+        int perProducer = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        List<CompletableFuture<RideResponseDTO>> results = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<CompletableFuture<Void>> submitted = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            List<CompletableFuture<RideResponseDTO>> producerResults = new ArrayList<>();
+            int producer = p;
+            for (int i = 0; i < perProducer; i++) {
+                names.add("p" + producer + "-" + i);
+            }
+            submitted.add(CompletableFuture.runAsync(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    // Five zones, about 11 km apart
+                    Location pickup = new Location(12.9 + 0.1 * (i % 5), 80.1);
+                    producerResults.add(engine.submit(new RideRequestDTO("p" + producer + "-" + i, "+1",
+                            pickup, new Location(13.0, 80.2), 0, 10)));
+                }
+            }, executor).thenRun(() -> {
+                synchronized (results) {
+                    results.addAll(producerResults);
+                }
+            }));
+        }
+        CompletableFuture.allOf(submitted.toArray(new CompletableFuture<?>[0])).get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        List<String> answered = new ArrayList<>();
+        for (CompletableFuture<RideResponseDTO> result : results) {
+            answered.add(result.get(30, TimeUnit.SECONDS).getMessage());
+        }
+        assertEquals(names.stream().sorted().toList(), answered.stream().sorted().toList());
+        assertEquals(0, overlaps.get());
+        assertEquals(5, ownerByZone.size());
+        assertFalse(ownerByZone.containsValue("several"));
+        assertEquals(0, engine.backlog());
+    }
+
+    /**
+     * Test that a request failing its batch fails alone and the rest of the batch is booked
+     */
+    @Test
+    public void testDispatch_FailingRequestIsolated() throws Exception {
+        CountDownLatch firstBatch = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger largestFailedBatch = new AtomicInteger();
+
+        ReflectionTestUtils.setField(engine, "zoneResolver", new ZoneResolver());
+        ReflectionTestUtils.setField(engine, "enabled", true);
+        ReflectionTestUtils.setField(engine, "partitionCount", 1);
+        engine.start(requests -> {
+            if (firstBatch.getCount() > 0) {
+                // Hold the owner so the next requests queue up into one batch
+                firstBatch.countDown();
+                await(release);
+            }
+            if (requests.stream().anyMatch(request -> request.getName().equals("bad"))) {
+                largestFailedBatch.accumulateAndGet(requests.size(), Math::max);
+                throw new IllegalArgumentException("bad request");
+            }
+            return requests.stream()
+                    .map(request -> RideResponseDTO.builder().message(request.getName()).build())
+                    .toList();
+        });
+
+        CompletableFuture<RideResponseDTO> first = engine.submit(request("first"));
+        assertTrue(firstBatch.await(5, TimeUnit.SECONDS));
+        List<CompletableFuture<RideResponseDTO>> batch = new ArrayList<>();
+        for (String name : List.of("a", "b", "bad", "c", "d")) {
+            batch.add(engine.submit(request(name)));
+        }
+        release.countDown();
+
+        assertEquals("first", first.get(5, TimeUnit.SECONDS).getMessage());
+        for (int i = 0; i < batch.size(); i++) {
+            if (i == 2) {
+                ExecutionException failure = assertThrows(ExecutionException.class,
+                        () -> batch.get(2).get(5, TimeUnit.SECONDS));
+                assertInstanceOf(IllegalArgumentException.class, failure.getCause());
+            } else {
+                assertNotNull(batch.get(i).get(5, TimeUnit.SECONDS).getMessage());
+            }
+        }
+        assertEquals(5, largestFailedBatch.get());
+    }
+
+    /**
+     * Test that stopping the engine while producers are publishing completes every future
+     */
+    @Test
+    public void testStop_CompletesInFlightSubmits() throws Exception {
+        ReflectionTestUtils.setField(engine, "zoneResolver", new ZoneResolver());
+        ReflectionTestUtils.setField(engine, "enabled", true);
+        ReflectionTestUtils.setField(engine, "partitionCount", 1);
+        ReflectionTestUtils.setField(engine, "ringSize", 16);
+        engine.start(requests -> requests.stream()
+                .map(request -> RideResponseDTO.builder().message(request.getName()).build())
+                .toList());
+
+        int producers = 4;
+        List<CompletableFuture<RideResponseDTO>> results = new ArrayList<>();
+        CountDownLatch started = new CountDownLatch(producers);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            Thread thread = new Thread(() -> {
+                started.countDown();
+                for (int i = 0; i < 2_000; i++) {
+                    CompletableFuture<RideResponseDTO> result = engine.submit(new RideRequestDTO("r" + i, "+1",
+                            new Location(12.9, 80.1), new Location(13.0, 80.2), 0, 10));
+                    synchronized (results) {
+                        results.add(result);
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        started.await(5, TimeUnit.SECONDS);
+        engine.stop();
+        for (Thread thread : threads) {
+            thread.join(30_000);
+        }
+
+        for (CompletableFuture<RideResponseDTO> result : results) {
+            try {
+                result.get(5, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                assertInstanceOf(IllegalStateException.class, e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Test that submitting to a stopped engine fails instead of hanging
+     */
+    @Test
+    public void testSubmit_NotRunning() {
+        CompletableFuture<RideResponseDTO> result = engine.submit(new RideRequestDTO("late", "+1",
+                new Location(12.9, 80.1), new Location(13.0, 80.2), 0, 10));
+
+        assertTrue(result.isCompletedExceptionally());
+    }
+
+    private static RideRequestDTO request(String name) {
+        return new RideRequestDTO(name, "+1", new Location(12.9, 80.1), new Location(13.0, 80.2), 0, 10);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.airport.ridepooling;
+
+import com.airport.ridepooling.exception.ServiceOverloadedException;
+import com.airport.ridepooling.service.RideAdmissionControl;
+import com.airport.ridepooling.service.RideMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RideAdmissionControl
+ */
+public class RideAdmissionControlTest {
+
+    private static final long ZONE = 42L;
+
+    /**
+     * Test the degradation steps of a saturated zone: queue, solo ride, then rejection
+     */
+    @Test
+    public void testCall_DegradesInSteps() throws Exception {
+        RideAdmissionControl admission = admissionControl(1, 1, 1);
+        CountDownLatch booking = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Holds the zone's only permit
+        CompletableFuture<String> first = CompletableFuture.supplyAsync(() -> admission.call(ZONE, () -> {
+            booking.countDown();
+            await(release);
+            return "pooled";
+        }, () -> "solo"));
+        assertTrue(booking.await(5, TimeUnit.SECONDS));
+
+        // Waits in the queue and gets the permit once it is released
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(
+                () -> admission.call(ZONE, () -> "pooled", () -> "solo"));
+        while (!admission.isCongested(ZONE)) {
+            Thread.onSpinWait();
+        }
+
+        // Queue full: booked solo, unless the solo bookings are saturated too
+        assertEquals("solo", admission.call(ZONE, () -> "pooled", () -> "solo"));
+        ServiceOverloadedException overloaded = assertThrows(ServiceOverloadedException.class,
+                () -> admission.call(ZONE, () -> "pooled",
+                        () -> admission.call(ZONE, () -> "pooled", () -> "solo")));
+        assertEquals(2, overloaded.getRetryAfterSeconds());
+
+        // Other zones are not affected
+        assertEquals("pooled", admission.call(ZONE + 1, () -> "pooled", () -> "solo"));
+
+        release.countDown();
+        assertEquals("pooled", first.get(5, TimeUnit.SECONDS));
+        assertEquals("pooled", queued.get(5, TimeUnit.SECONDS));
+        assertEquals(0, admission.inFlight());
+    }
+
+    /**
+     * Test that slow bookings shrink the zone limit, so requests beyond it degrade
+     */
+    @Test
+    public void testCall_LimitAdaptsToLatency() {
+        RideAdmissionControl admission = admissionControl(2, 0, 16);
+        ReflectionTestUtils.setField(admission, "targetLatencyMs", 0L);
+        ReflectionTestUtils.setField(admission, "backoffRatio", 0.5);
+
+        // A slow booking halves the limit from 2 to 1
+        assertEquals("pooled", admission.call(ZONE, () -> {
+            sleep(5);
+            return "pooled";
+        }, () -> "solo"));
+
+        String nested = admission.call(ZONE, () -> admission.call(ZONE, () -> "pooled", () -> "solo"), () -> "solo");
+        assertEquals("solo", nested);
+    }
+
+    /**
+     * Test that the sweep drops idle zones only, and that an evicted zone comes back on demand
+     */
+    @Test
+    public void testEvictIdleZones() throws Exception {
+        RideAdmissionControl admission = admissionControl(1, 1, 1);
+        CountDownLatch booking = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        assertEquals("pooled", admission.call(ZONE + 1, () -> "pooled", () -> "solo"));
+        CompletableFuture<String> busy = CompletableFuture.supplyAsync(() -> admission.call(ZONE, () -> {
+            booking.countDown();
+            await(release);
+            return "pooled";
+        }, () -> "solo"));
+        assertTrue(booking.await(5, TimeUnit.SECONDS));
+
+        admission.evictIdleZones();
+        assertEquals(1, admission.zoneCount());
+
+        // The busy zone keeps its limit: a second booking still has to queue
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(
+                () -> admission.call(ZONE, () -> "pooled", () -> "solo"));
+        while (!admission.isCongested(ZONE)) {
+            Thread.onSpinWait();
+        }
+        release.countDown();
+        assertEquals("pooled", busy.get(5, TimeUnit.SECONDS));
+        assertEquals("pooled", queued.get(5, TimeUnit.SECONDS));
+
+        admission.evictIdleZones();
+        assertEquals(0, admission.zoneCount());
+        assertEquals("pooled", admission.call(ZONE, () -> "pooled", () -> "solo"));
+        assertEquals(1, admission.zoneCount());
+    }
+
+    private RideAdmissionControl admissionControl(int initialLimit, int queueSize, int degradedLimit) {
+        RideAdmissionControl admission = new RideAdmissionControl();
+        ReflectionTestUtils.setField(admission, "rideMetrics", new RideMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(admission, "enabled", true);
+        ReflectionTestUtils.setField(admission, "initialLimit", initialLimit);
+        ReflectionTestUtils.setField(admission, "queueSize", queueSize);
+        ReflectionTestUtils.setField(admission, "queueTimeoutMs", 5_000L);
+        ReflectionTestUtils.setField(admission, "degradedLimit", degradedLimit);
+        ReflectionTestUtils.invokeMethod(admission, "init");
+        return admission;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,16 +1,41 @@
 package com.airport.ridepooling;
 
 import com.airport.ridepooling.dto.RideRequestDTO;
+import com.airport.ridepooling.dto.RideResponseDTO;
 import com.airport.ridepooling.model.Location;
+import com.airport.ridepooling.model.Ride;
 import com.airport.ridepooling.model.RideStatus;
+import com.airport.ridepooling.repository.RideRepository;
+import com.airport.ridepooling.service.RideMetrics;
+import com.airport.ridepooling.service.RideService;
+import com.airport.ridepooling.service.RoutePlanner;
+import com.airport.ridepooling.service.SeatLedger;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -27,6 +52,21 @@ public class RideControllerIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
     
+    @Autowired
+    private RideService rideService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private RoutePlanner routePlanner;
+    
+    @Autowired
+    private SeatLedger seatLedger;
+    
+    @Autowired
+    private RideRepository rideRepository;
+    
     /**
      * Test successful ride request creation
      */
@@ -91,6 +131,55 @@ public class RideControllerIntegrationTest {
                 .andExpect(jsonPath("$.savingsPercentage").isNumber());
     }
     
+    /**
+     * Test pre-booking - only requests with overlapping pickup windows are pooled
+     */
+    @Test
+    public void testRidePooling_PickupWindows() throws Exception {
+        Location chennaiAirport = new Location(12.9941, 80.1709);
+        Location tNagar = new Location(13.0418, 80.2341);
+        LocalDateTime flightArrival = LocalDateTime.now().plusHours(2);
+        
+        // Pre-booked for an arriving flight
+        RideRequestDTO preBooked = new RideRequestDTO(
+            "Ken", "1212121212", chennaiAirport, tNagar, 1, 20, flightArrival, 15);
+        String preBookedResponse = mockMvc.perform(post("/api/rides/request")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(preBooked)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.isPooled").value(false))
+                .andReturn().getResponse().getContentAsString();
+        long preBookedRideId = objectMapper.readTree(preBookedResponse).get("rideId").asLong();
+        
+        // Immediate pickup on the same route: not pooled with a ride two hours out
+        RideRequestDTO immediate = new RideRequestDTO(
+            "Lena", "1313131313", chennaiAirport, tNagar, 1, 20);
+        mockMvc.perform(post("/api/rides/request")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(immediate)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.isPooled").value(false))
+                .andExpect(jsonPath("$.rideId").value(not(preBookedRideId)));
+        
+        // Same flight, overlapping window: pooled
+        RideRequestDTO sameFlight = new RideRequestDTO(
+            "Mona", "1414141414", chennaiAirport, tNagar, 1, 20, flightArrival.plusMinutes(10), 15);
+        mockMvc.perform(post("/api/rides/request")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(sameFlight)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.isPooled").value(true))
+                .andExpect(jsonPath("$.rideId").value(preBookedRideId));
+        
+        // Departure window narrowed to what both passengers accept
+        mockMvc.perform(get("/api/rides/" + preBookedRideId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.scheduledTime").value(startsWith(
+                        flightArrival.plusMinutes(10).toString().substring(0, 16))))
+                .andExpect(jsonPath("$.scheduledUntil").value(startsWith(
+                        flightArrival.plusMinutes(15).toString().substring(0, 16))));
+    }
+    
     /**
      * Test validation - missing required fields
      */
@@ -145,6 +234,51 @@ public class RideControllerIntegrationTest {
                 .andExpect(jsonPath("$.passengers[0].name").value("Charlie"));
     }
     
+    /**
+     * Test conditional get - unchanged ride is 304, a change issues a new ETag
+     */
+    @Test
+    public void testGetRide_NotModifiedUntilChanged() throws Exception {
+        RideRequestDTO request = new RideRequestDTO(
+            "Heidi",
+            "1212121212",
+            new Location(17.2403, 78.4294), // Hyderabad Airport
+            new Location(17.3850, 78.4867),
+            1,
+            15
+        );
+        
+        String response = mockMvc.perform(post("/api/rides/request")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        
+        Long rideId = objectMapper.readTree(response).get("rideId").asLong();
+        Long passengerId = objectMapper.readTree(response).get("passengerId").asLong();
+        
+        String eTag = mockMvc.perform(get("/api/rides/" + rideId))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn()
+                .getResponse()
+                .getHeader("ETag");
+        
+        mockMvc.perform(get("/api/rides/" + rideId).header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        
+        mockMvc.perform(delete("/api/rides/passenger/" + passengerId))
+                .andExpect(status().isOk());
+        
+        mockMvc.perform(get("/api/rides/" + rideId).header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", not(eTag)))
+                .andExpect(jsonPath("$.status").value(RideStatus.CANCELLED.name()));
+    }
+    
     /**
      * Test ride cancellation
      */
@@ -176,6 +310,271 @@ public class RideControllerIntegrationTest {
                 .andExpect(jsonPath("$.message").value("Ride cancelled successfully"));
     }
     
+    /**
+     * Test group request - passengers of one flight pool with each other
+     */
+    @Test
+    public void testRequestRides_GroupPooledTogether() throws Exception {
+        List<RideRequestDTO> group = List.of(
+            new RideRequestDTO("Frank", "6666666661",
+                new Location(13.1986, 77.7066), new Location(12.9716, 77.5946), 1, 20), // Bengaluru Airport
+            new RideRequestDTO("Grace", "6666666662",
+                new Location(13.1990, 77.7070), new Location(12.9720, 77.5950), 1, 20)
+        );
+        
+        String response = mockMvc.perform(post("/api/rides/request/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(group)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].passengerId").exists())
+                .andExpect(jsonPath("$[1].status").value(RideStatus.MATCHED.name()))
+                .andExpect(jsonPath("$[1].isPooled").value(true))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        
+        long rideId = objectMapper.readTree(response).get(0).get("rideId").asLong();
+        mockMvc.perform(get("/api/rides/" + rideId))
+                .andExpect(jsonPath("$.passengers.length()").value(2));
+    }
+    
+    /**
+     * Test group request validation - invalid entry rejects the whole group
+     */
+    @Test
+    public void testRequestRides_ValidationError() throws Exception {
+        List<RideRequestDTO> group = List.of(
+            new RideRequestDTO(null, "7777777777",
+                new Location(13.1986, 77.7066), new Location(12.9716, 77.5946), 1, 20)
+        );
+        
+        mockMvc.perform(post("/api/rides/request/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(group)))
+                .andExpect(status().isBadRequest());
+    }
+    
+    /**
+     * Test async ride request - ticket accepted, then completed in the background
+     */
+    @Test
+    public void testRequestRideAsync_TicketCompletes() throws Exception {
+        RideRequestDTO request = new RideRequestDTO(
+            "Erin",
+            "5555555555",
+            new Location(19.0896, 72.8656), // Mumbai Airport
+            new Location(19.0760, 72.8777),
+            1,
+            15
+        );
+        
+        String response = mockMvc.perform(post("/api/rides/request/async")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists("Location"))
+                .andExpect(jsonPath("$.ticketId").exists())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        
+        String ticketId = objectMapper.readTree(response).get("ticketId").asText();
+        
+        // Poll until the background booking finishes
+        String status = "PENDING";
+        for (int attempt = 0; attempt < 50 && status.equals("PENDING"); attempt++) {
+            Thread.sleep(100);
+            String ticket = mockMvc.perform(get("/api/rides/tickets/" + ticketId))
+                    .andExpect(status().isOk())
+                    .andReturn()
+                    .getResponse()
+                    .getContentAsString();
+            status = objectMapper.readTree(ticket).get("status").asText();
+        }
+        
+        mockMvc.perform(get("/api/rides/tickets/" + ticketId))
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.result.rideId").exists())
+                .andExpect(jsonPath("$.result.passengerId").exists());
+    }
+    
+    /**
+     * Test surge info - per-zone breakdown includes the requested pickup zone
+     */
+    @Test
+    public void testGetSurgeInfo_ZoneBreakdown() throws Exception {
+        RideRequestDTO request = new RideRequestDTO(
+            "Ivan",
+            "8888888888",
+            new Location(22.6547, 88.4467), // Kolkata Airport
+            new Location(22.5726, 88.3639),
+            1,
+            15
+        );
+        
+        mockMvc.perform(post("/api/rides/request")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+        
+        mockMvc.perform(get("/api/rides/pricing/surge"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.multiplier").isNumber())
+                .andExpect(jsonPath("$.zones").isArray())
+                .andExpect(jsonPath("$.zones[?(@.center.latitude > 22.6 && @.center.latitude < 22.7)].requests").value(1));
+    }
+    
+    /**
+     * Test hot-path metrics - a booking is timed and exposed on the actuator
+     */
+    @Test
+    public void testMetrics_BookingTimed() throws Exception {
+        RideRequestDTO request = new RideRequestDTO(
+            "Judy",
+            "9999999999",
+            new Location(26.8289, 75.8056), // Jaipur Airport
+            new Location(26.9124, 75.7873),
+            1,
+            15
+        );
+
+        mockMvc.perform(post("/api/rides/request")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isCreated());
+
+        mockMvc.perform(get("/actuator/metrics/ridepooling.booking.duration"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[?(@.statistic == 'COUNT')].value").value(hasItem(greaterThanOrEqualTo(1.0))));
+
+        mockMvc.perform(get("/actuator/metrics/ridepooling.matching.candidates.rejected"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.availableTags[?(@.tag == 'reason')].values[*]")
+                        .value(hasItems("capacity", "radius", "detour")));
+    }
+
+    /**
+     * Test that a booking whose transaction loses a version race at commit is retried
+     * as a whole and then succeeds, with the failed attempt rolled back
+     */
+    @Test
+    public void testRequestRide_RetriedAfterCommitConflict() throws Exception {
+        TransactionTemplate original = (TransactionTemplate) ReflectionTestUtils.getField(rideService, "transactionTemplate");
+        AtomicInteger attempts = new AtomicInteger();
+        TransactionTemplate conflicting = new TransactionTemplate(original.getTransactionManager()) {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                return super.execute(status -> {
+                    if (attempts.incrementAndGet() == 1) {
+                        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                            @Override
+                            public void beforeCommit(boolean readOnly) {
+                                throw new ObjectOptimisticLockingFailureException(Ride.class, 0L);
+                            }
+                        });
+                    }
+                    return action.doInTransaction(status);
+                });
+            }
+        };
+        double commitRetries = meterRegistry.get(RideMetrics.BOOKING_RETRIES).tag("phase", "commit").counter().count();
+
+        RideRequestDTO request = new RideRequestDTO(
+            "Retry Rita",
+            "1234567890",
+            new Location(10.0, 70.0),
+            new Location(10.1, 70.1),
+            1,
+            15
+        );
+        ReflectionTestUtils.setField(rideService, "transactionTemplate", conflicting);
+        RideResponseDTO response;
+        try {
+            response = rideService.requestRide(request);
+        } finally {
+            ReflectionTestUtils.setField(rideService, "transactionTemplate", original);
+        }
+
+        assertEquals(2, attempts.get());
+        assertEquals(commitRetries + 1,
+                meterRegistry.get(RideMetrics.BOOKING_RETRIES).tag("phase", "commit").counter().count());
+        mockMvc.perform(get("/api/rides/" + response.getRideId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.passengers", hasSize(1)))
+                .andExpect(jsonPath("$.passengers[0].name").value("Retry Rita"));
+    }
+
+    /**
+     * Test that a group batch rolled back at commit leaves no seat ledger entry for the
+     * ride it opened and pooled into, and is then booked request by request
+     */
+    @Test
+    public void testRequestRides_RolledBackBatchLeavesNoLedgerEntry() throws Exception {
+        TransactionTemplate original = (TransactionTemplate) ReflectionTestUtils.getField(rideService, "transactionTemplate");
+        AtomicInteger attempts = new AtomicInteger();
+        TransactionTemplate conflicting = new TransactionTemplate(original.getTransactionManager()) {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                return super.execute(status -> {
+                    if (attempts.incrementAndGet() == 1) {
+                        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                            @Override
+                            public void beforeCommit(boolean readOnly) {
+                                throw new ObjectOptimisticLockingFailureException(Ride.class, 0L);
+                            }
+                        });
+                    }
+                    return action.doInTransaction(status);
+                });
+            }
+        };
+
+        // Two passengers from the same curb: the second pools into the ride the first opens
+        List<RideRequestDTO> group = List.of(
+            new RideRequestDTO("Batch Bea", "1234567890", new Location(12.0, 72.0), new Location(12.1, 72.1), 0, 15),
+            new RideRequestDTO("Batch Ben", "1234567890", new Location(12.0, 72.0), new Location(12.1, 72.1), 0, 15));
+        ReflectionTestUtils.setField(rideService, "transactionTemplate", conflicting);
+        List<RideResponseDTO> responses;
+        try {
+            responses = rideService.requestRides(group);
+        } finally {
+            ReflectionTestUtils.setField(rideService, "transactionTemplate", original);
+        }
+
+        assertEquals(3, attempts.get());
+        assertEquals(responses.get(0).getRideId(), responses.get(1).getRideId());
+        Map<?, ?> ledger = (Map<?, ?>) ReflectionTestUtils.getField(seatLedger, "capacities");
+        for (Object rideId : ledger.keySet()) {
+            assertTrue(rideRepository.existsById((Long) rideId), "ledger entry for uncommitted ride " + rideId);
+        }
+    }
+
+    /**
+     * Test that an expired ride is dispatched and its cached route is dropped
+     */
+    @Test
+    public void testExpireRide_EvictsRoute() throws Exception {
+        RideRequestDTO request = new RideRequestDTO(
+            "Expiring Eve",
+            "1234567890",
+            new Location(11.0, 71.0),
+            new Location(11.1, 71.1),
+            1,
+            15
+        );
+        RideResponseDTO response = rideService.requestRide(request);
+        assertNotNull(routePlanner.cachedRoute(response.getRideId()));
+
+        RideService target = AopTestUtils.getTargetObject(rideService);
+        ReflectionTestUtils.invokeMethod(target, "expireRide", response.getRideId());
+
+        assertNull(routePlanner.cachedRoute(response.getRideId()));
+        mockMvc.perform(get("/api/rides/" + response.getRideId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value(RideStatus.IN_PROGRESS.name()));
+    }
+
     /**
      * Test health check endpoint
      */
@@ -0,0 +1,78 @@
+package com.airport.ridepooling;
+
+import com.airport.ridepooling.dto.RideDetailsDTO;
+import com.airport.ridepooling.model.Ride;
+import com.airport.ridepooling.model.RideStatus;
+import com.airport.ridepooling.service.RideDetailsCache;
+import com.airport.ridepooling.service.RideMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RideDetailsCache
+ */
+public class RideDetailsCacheTest {
+
+    private SimpleMeterRegistry registry;
+    private RideDetailsCache rideDetailsCache;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        rideDetailsCache = new RideDetailsCache();
+        ReflectionTestUtils.setField(rideDetailsCache, "rideMetrics", new RideMetrics(registry));
+        ReflectionTestUtils.invokeMethod(rideDetailsCache, "init");
+    }
+
+    /**
+     * Test that repeated lookups of an unchanged ride are hits
+     */
+    @Test
+    public void testGet_HitUntilInvalidated() {
+        RideDetailsDTO details = details(1L, RideStatus.PENDING);
+        rideDetailsCache.put(0L, details);
+
+        assertSame(details, rideDetailsCache.get(1L));
+        assertSame(details, rideDetailsCache.get(1L));
+
+        rideDetailsCache.invalidate(ride(1L, 1L));
+        assertNull(rideDetailsCache.get(1L));
+
+        assertEquals(2.0, registry.get(RideMetrics.DETAILS_CACHE).tag("result", "hit").counter().count());
+        assertEquals(1.0, registry.get(RideMetrics.DETAILS_CACHE).tag("result", "miss").counter().count());
+    }
+
+    /**
+     * Test that details loaded before a change cannot be cached after its invalidation
+     */
+    @Test
+    public void testPut_StaleVersionIgnoredAfterInvalidation() {
+        rideDetailsCache.invalidate(ride(1L, 3L));
+
+        rideDetailsCache.put(2L, details(1L, RideStatus.PENDING));
+        assertNull(rideDetailsCache.get(1L));
+
+        RideDetailsDTO current = details(1L, RideStatus.MATCHED);
+        rideDetailsCache.put(3L, current);
+        assertSame(current, rideDetailsCache.get(1L));
+        assertEquals(new RideDetailsCache.Entry(3L, current), rideDetailsCache.getEntry(1L));
+    }
+
+    private RideDetailsDTO details(Long rideId, RideStatus status) {
+        return RideDetailsDTO.builder()
+                .rideId(rideId)
+                .status(status)
+                .build();
+    }
+
+    private Ride ride(Long id, Long version) {
+        Ride ride = new Ride();
+        ride.setId(id);
+        ride.setVersion(version);
+        return ride;
+    }
+}
@@ -0,0 +1,227 @@
+package com.airport.ridepooling;
+
+import com.airport.ridepooling.model.Location;
+import com.airport.ridepooling.model.Passenger;
+import com.airport.ridepooling.model.Ride;
+import com.airport.ridepooling.model.RideStatus;
+import com.airport.ridepooling.service.RideJournal;
+import com.airport.ridepooling.service.RideMetrics;
+import com.airport.ridepooling.service.RoutePlanner;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RideJournal
+ */
+public class RideJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private RoutePlanner routePlanner = new RoutePlanner();
+
+    /**
+     * Test that replay keeps the last state of each open ride and drops closed ones
+     */
+    @Test
+    public void testReplay_LiveRidesOnly() throws Exception {
+        Path file = directory.resolve("journal.bin");
+        LocalDateTime pickup = LocalDateTime.of(2024, 1, 15, 18, 30);
+
+        RideJournal journal = open(file);
+        Ride pending = ride(1L, RideStatus.PENDING, pickup);
+        journal.append(RideJournal.EventType.CREATED, pending);
+        pending.setAvailableSeats(2);
+        pending.setVersion(1L);
+        journal.append(RideJournal.EventType.JOINED, pending);
+        Ride completed = ride(2L, RideStatus.PENDING, pickup);
+        journal.append(RideJournal.EventType.CREATED, completed);
+        completed.setStatus(RideStatus.COMPLETED);
+        journal.append(RideJournal.EventType.STATUS_CHANGED, completed);
+        assertEquals(1, journal.liveRideCount());
+        journal.close();
+        Files.delete(directory.resolve("journal.snapshot"));
+
+        RideJournal recovered = open(file);
+        List<RideJournal.RideState> rides = recovered.recoveredRides();
+        recovered.close();
+
+        assertEquals(1, rides.size());
+        RideJournal.RideState state = rides.get(0);
+        assertEquals(1L, state.rideId());
+        assertEquals(1L, state.version());
+        assertEquals(RideStatus.PENDING, state.status());
+        assertEquals(2, state.availableSeats());
+        assertEquals(new Location(12.9941, 80.1709), state.anchor());
+        assertEquals(pickup, state.scheduledTime());
+        assertEquals(pickup.plusMinutes(15), state.scheduledUntil());
+    }
+
+    /**
+     * Test that records appended out of version order never reopen a closed ride or
+     * roll an open one back, live or on replay
+     */
+    @Test
+    public void testTrack_OutOfOrderVersions() throws Exception {
+        Path file = directory.resolve("journal.bin");
+        LocalDateTime pickup = LocalDateTime.of(2024, 1, 15, 18, 30);
+
+        RideJournal journal = open(file);
+        // Ride 1: v2 (cancelled) lands before v1 (joined)
+        Ride cancelled = ride(1L, RideStatus.CANCELLED, pickup);
+        cancelled.setVersion(2L);
+        journal.append(RideJournal.EventType.CANCELLED, cancelled);
+        Ride joined = ride(1L, RideStatus.MATCHED, pickup);
+        joined.setVersion(1L);
+        journal.append(RideJournal.EventType.JOINED, joined);
+
+        // Ride 2: v1 (seat taken) lands before v0 (created)
+        Ride matched = ride(2L, RideStatus.MATCHED, pickup);
+        matched.setVersion(1L);
+        matched.setAvailableSeats(2);
+        journal.append(RideJournal.EventType.JOINED, matched);
+        journal.append(RideJournal.EventType.CREATED, ride(2L, RideStatus.PENDING, pickup));
+        assertEquals(1, journal.liveRideCount());
+        journal.close();
+        Files.delete(directory.resolve("journal.snapshot"));
+
+        RideJournal recovered = open(file);
+        List<RideJournal.RideState> rides = recovered.recoveredRides();
+        recovered.close();
+
+        assertEquals(1, rides.size());
+        assertEquals(2L, rides.get(0).rideId());
+        assertEquals(1L, rides.get(0).version());
+        assertEquals(2, rides.get(0).availableSeats());
+    }
+
+    /**
+     * Test that a ride closed before a snapshot stays closed when an older record of it
+     * lands in the journal tail after the snapshot
+     */
+    @Test
+    public void testRecover_ClosedRideSurvivesSnapshot() throws Exception {
+        Path file = directory.resolve("journal.bin");
+        LocalDateTime pickup = LocalDateTime.now();
+
+        RideJournal journal = open(file);
+        Ride cancelled = ride(1L, RideStatus.CANCELLED, pickup);
+        cancelled.setVersion(2L);
+        journal.append(RideJournal.EventType.CANCELLED, cancelled);
+        journal.snapshot();
+
+        // The reordered, older join of the same ride, then a crash (no final snapshot)
+        Ride joined = ride(1L, RideStatus.MATCHED, pickup);
+        joined.setVersion(1L);
+        journal.append(RideJournal.EventType.JOINED, joined);
+        journal.flush();
+        assertEquals(0, journal.liveRideCount());
+
+        RideJournal recovered = open(file);
+        List<RideJournal.RideState> rides = recovered.recoveredRides();
+        recovered.close();
+
+        assertTrue(rides.isEmpty());
+    }
+
+    /**
+     * Test that a torn record at the tail is cut off and the records before it survive
+     */
+    @Test
+    public void testReplay_TornTailTruncated() throws Exception {
+        Path file = directory.resolve("journal.bin");
+        RideJournal journal = open(file);
+        journal.append(RideJournal.EventType.CREATED, ride(1L, RideStatus.PENDING, LocalDateTime.now()));
+        journal.close();
+        long intactSize = Files.size(file);
+
+        Files.write(file, new byte[40], StandardOpenOption.APPEND);
+
+        RideJournal recovered = open(file);
+        assertEquals(1, recovered.recoveredRides().size());
+        recovered.close();
+        assertEquals(intactSize, Files.size(file));
+    }
+
+    /**
+     * Test that recovery restores the snapshot, routes included, and replays the journal tail after it
+     */
+    @Test
+    public void testRecover_SnapshotPlusTail() throws Exception {
+        Path file = directory.resolve("journal.bin");
+        LocalDateTime pickup = LocalDateTime.now();
+
+        RideJournal journal = open(file);
+        Ride joined = ride(1L, RideStatus.PENDING, pickup);
+        journal.append(RideJournal.EventType.CREATED, joined);
+        RoutePlanner.Route route = routePlanner.insert(RoutePlanner.Route.EMPTY, joined.getPrimaryPassenger());
+        routePlanner.store(joined, route);
+        Ride cancelled = ride(3L, RideStatus.PENDING, pickup);
+        journal.append(RideJournal.EventType.CREATED, cancelled);
+        routePlanner.store(cancelled, routePlanner.insert(RoutePlanner.Route.EMPTY, cancelled.getPrimaryPassenger()));
+        journal.snapshot();
+
+        // After the snapshot: a join, a cancellation and a new ride, then a crash (no final snapshot)
+        joined.setStatus(RideStatus.MATCHED);
+        joined.setVersion(1L);
+        journal.append(RideJournal.EventType.JOINED, joined);
+        cancelled.setStatus(RideStatus.CANCELLED);
+        cancelled.setVersion(1L);
+        journal.append(RideJournal.EventType.CANCELLED, cancelled);
+        journal.append(RideJournal.EventType.CREATED, ride(2L, RideStatus.PENDING, pickup));
+        journal.flush();
+
+        routePlanner = new RoutePlanner();
+        RideJournal recovered = open(file);
+        List<RideJournal.RideState> rides = recovered.recoveredRides();
+
+        assertEquals(2, rides.size());
+        RideJournal.RideState state = rides.stream().filter(ride -> ride.rideId() == 1L).findFirst().orElseThrow();
+        assertEquals(RideStatus.MATCHED, state.status());
+        assertEquals(1L, state.version());
+        RoutePlanner.Route restored = routePlanner.cachedRoute(1L);
+        assertNotNull(restored);
+        assertEquals(0L, restored.rideVersion());
+        assertEquals(route.stops().size(), restored.stops().size());
+        assertEquals(route.totalDistanceKm(), restored.totalDistanceKm());
+        assertNull(routePlanner.cachedRoute(3L));
+        recovered.close();
+    }
+
+    private RideJournal open(Path file) {
+        RideJournal journal = new RideJournal();
+        ReflectionTestUtils.setField(journal, "rideMetrics", new RideMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "routePlanner", routePlanner);
+        ReflectionTestUtils.setField(journal, "path", file.toString());
+        ReflectionTestUtils.setField(journal, "snapshotPath", file.resolveSibling("journal.snapshot").toString());
+        ReflectionTestUtils.invokeMethod(journal, "open");
+        return journal;
+    }
+
+    private Ride ride(Long id, RideStatus status, LocalDateTime pickup) {
+        Passenger passenger = new Passenger();
+        passenger.setPickupLocation(new Location(12.9941, 80.1709));
+        passenger.setDropoffLocation(new Location(13.0418, 80.2341));
+        passenger.setEarliestPickup(pickup);
+        passenger.setLatestPickup(pickup.plusMinutes(15));
+
+        Ride ride = new Ride();
+        ride.setId(id);
+        ride.setVersion(0L);
+        ride.setStatus(status);
+        ride.setCreatedAt(pickup.minusMinutes(5));
+        ride.addPassenger(passenger);
+        return ride;
+    }
+}
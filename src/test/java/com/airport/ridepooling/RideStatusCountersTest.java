@@ -0,0 +1,111 @@
+package com.airport.ridepooling;
+
+import com.airport.ridepooling.model.RideStatus;
+import com.airport.ridepooling.repository.RideRepository;
+import com.airport.ridepooling.service.RideStatusCounters;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RideStatusCounters
+ */
+@ExtendWith(MockitoExtension.class)
+public class RideStatusCountersTest {
+
+    @Mock
+    private RideRepository rideRepository;
+
+    @InjectMocks
+    private RideStatusCounters rideStatusCounters;
+
+    /**
+     * Test the counts and occupancy through a ride's lifecycle, as RideService reports it
+     */
+    @Test
+    public void testTransition_RideLifecycle() {
+        // Two new solo rides
+        rideStatusCounters.transition(null, 0, RideStatus.PENDING, 1);
+        rideStatusCounters.transition(null, 0, RideStatus.PENDING, 1);
+        assertEquals(2, rideStatusCounters.count(RideStatus.PENDING));
+        assertEquals(1.0, rideStatusCounters.averageOccupancy());
+
+        // A passenger joins the first ride, then a third
+        rideStatusCounters.transition(RideStatus.PENDING, 1, RideStatus.MATCHED, 2);
+        rideStatusCounters.transition(RideStatus.MATCHED, 2, RideStatus.MATCHED, 3);
+        assertEquals(1, rideStatusCounters.count(RideStatus.PENDING));
+        assertEquals(1, rideStatusCounters.count(RideStatus.MATCHED));
+        assertEquals(2.0, rideStatusCounters.averageOccupancy());
+
+        // One of the three cancels: the ride stays matched with two
+        rideStatusCounters.transition(RideStatus.MATCHED, 3, RideStatus.MATCHED, 2);
+        assertEquals(1.5, rideStatusCounters.averageOccupancy());
+
+        // The solo ride's passenger cancels: the ride is cancelled
+        rideStatusCounters.transition(RideStatus.PENDING, 1, RideStatus.CANCELLED, 0);
+        assertEquals(0, rideStatusCounters.count(RideStatus.PENDING));
+        assertEquals(1, rideStatusCounters.count(RideStatus.CANCELLED));
+        assertEquals(2.0, rideStatusCounters.averageOccupancy());
+
+        // The matched ride is dispatched and leaves the open rides with its passengers
+        rideStatusCounters.transition(RideStatus.MATCHED, 2, RideStatus.IN_PROGRESS, 2);
+        assertEquals(0, rideStatusCounters.count(RideStatus.MATCHED));
+        assertEquals(1, rideStatusCounters.count(RideStatus.IN_PROGRESS));
+        assertEquals(0.0, rideStatusCounters.averageOccupancy());
+    }
+
+    /**
+     * Test that reconciliation replaces drifted counts with the database's
+     */
+    @Test
+    public void testReconcile_CorrectsDrift() {
+        // A missed cancellation and a dispatch counted twice
+        rideStatusCounters.transition(null, 0, RideStatus.PENDING, 1);
+        rideStatusCounters.transition(null, 0, RideStatus.PENDING, 1);
+        rideStatusCounters.transition(RideStatus.MATCHED, 2, RideStatus.IN_PROGRESS, 2);
+        rideStatusCounters.transition(RideStatus.MATCHED, 2, RideStatus.IN_PROGRESS, 2);
+
+        when(rideRepository.countGroupedByStatus()).thenReturn(List.of(
+                new Count(RideStatus.PENDING, 1, 1),
+                new Count(RideStatus.MATCHED, 1, 3),
+                new Count(RideStatus.IN_PROGRESS, 1, 2)));
+        rideStatusCounters.reconcile();
+
+        assertEquals(1, rideStatusCounters.count(RideStatus.PENDING));
+        assertEquals(1, rideStatusCounters.count(RideStatus.MATCHED));
+        assertEquals(1, rideStatusCounters.count(RideStatus.IN_PROGRESS));
+        assertEquals(0, rideStatusCounters.count(RideStatus.CANCELLED));
+        // Seated passengers count only open rides: (1 + 3) / 2
+        assertEquals(2.0, rideStatusCounters.averageOccupancy());
+
+        // Transitions after reconciliation build on the corrected counts
+        rideStatusCounters.transition(RideStatus.PENDING, 1, RideStatus.MATCHED, 2);
+        assertEquals(0, rideStatusCounters.count(RideStatus.PENDING));
+        assertEquals(2, rideStatusCounters.count(RideStatus.MATCHED));
+        assertEquals(2.5, rideStatusCounters.averageOccupancy());
+    }
+
+    private record Count(RideStatus status, long count, long seated) implements RideRepository.StatusCount {
+        @Override
+        public RideStatus getStatus() {
+            return status;
+        }
+
+        @Override
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public long getSeated() {
+            return seated;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.airport.ridepooling;
+
+import com.airport.ridepooling.model.Location;
+import com.airport.ridepooling.service.SurgeEngine;
+import com.airport.ridepooling.service.ZoneResolver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SurgeEngine
+ */
+public class SurgeEngineTest {
+
+    private static final Location TERMINAL_1 = new Location(28.5562, 77.1000);
+    private static final Location TERMINAL_3 = new Location(28.5550, 77.0850);
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+    private SurgeEngine surgeEngine;
+
+    @BeforeEach
+    public void setUp() {
+        surgeEngine = new SurgeEngine();
+        ReflectionTestUtils.setField(surgeEngine, "zoneResolver", new ZoneResolver());
+        ReflectionTestUtils.setField(surgeEngine, "clock", (LongSupplier) now::get);
+        ReflectionTestUtils.setField(surgeEngine, "windowSeconds", 60L);
+        ReflectionTestUtils.setField(surgeEngine, "bucketCount", 6);
+        ReflectionTestUtils.invokeMethod(surgeEngine, "init");
+    }
+
+    /**
+     * Test that demand in one zone does not leak into another
+     */
+    @Test
+    public void testDemandAt_IsPerZone() {
+        for (int i = 0; i < 5; i++) {
+            surgeEngine.recordRequest(TERMINAL_1);
+        }
+        surgeEngine.recordPooledMatch(TERMINAL_1);
+
+        SurgeEngine.ZoneDemand terminal1 = surgeEngine.demandAt(TERMINAL_1);
+        assertEquals(5, terminal1.requests());
+        assertEquals(1, terminal1.pooledMatches());
+        assertEquals(4, terminal1.unmatchedRequests());
+
+        assertEquals(0, surgeEngine.demandAt(TERMINAL_3).requests());
+    }
+
+    /**
+     * Test that demand ages out bucket by bucket as the window slides
+     */
+    @Test
+    public void testDemandAt_SlidesOutOfWindow() {
+        surgeEngine.recordRequest(TERMINAL_1);
+        now.addAndGet(30_000);
+        surgeEngine.recordRequest(TERMINAL_1);
+        assertEquals(2, surgeEngine.demandAt(TERMINAL_1).requests());
+
+        // First request leaves the 60 s window, second is still inside
+        now.addAndGet(35_000);
+        assertEquals(1, surgeEngine.demandAt(TERMINAL_1).requests());
+
+        // Slot reuse after a full lap must not resurrect old counts
+        surgeEngine.recordRequest(TERMINAL_1);
+        now.addAndGet(60_000);
+        assertEquals(0, surgeEngine.demandAt(TERMINAL_1).requests());
+        assertTrue(surgeEngine.activeZones().isEmpty());
+    }
+
+    /**
+     * Test that idle-zone eviction running concurrently never loses a recorded request
+     */
+    @Test
+    public void testEvictIdleZones_KeepsConcurrentRecords() throws Exception {
+        int zones = 50;
+        int rounds = 200;
+        Thread sweeper = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                surgeEngine.evictIdleZones();
+            }
+        });
+        sweeper.start();
+        try {
+            for (int round = 0; round < rounds; round++) {
+                for (int zone = 0; zone < zones; zone++) {
+                    surgeEngine.recordRequest(new Location(10.0 + zone * 0.1, 77.0));
+                }
+            }
+        } finally {
+            sweeper.interrupt();
+            sweeper.join();
+        }
+
+        long recorded = surgeEngine.activeZones().stream().mapToLong(SurgeEngine.ZoneDemand::requests).sum();
+        assertEquals((long) zones * rounds, recorded);
+    }
+}
@@ -0,0 +1,66 @@
+package com.airport.ridepooling;
+
+import com.airport.ridepooling.service.TimingWheel;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for TimingWheel
+ */
+public class TimingWheelTest {
+
+    private static final long TICK = 1000;
+
+    /**
+     * Test that timers fire on the first tick at or after their deadline, never early
+     */
+    @Test
+    public void testAdvance_FiresAtDeadline() {
+        TimingWheel wheel = new TimingWheel(TICK, 0);
+        wheel.schedule(1, 2_500);
+        wheel.schedule(2, 5_000);
+
+        assertEquals(List.of(), wheel.advance(2_999));
+        assertEquals(List.of(1L), wheel.advance(3_000));
+        assertEquals(List.of(), wheel.advance(4_999));
+        assertEquals(List.of(2L), wheel.advance(5_000));
+        assertEquals(0, wheel.size());
+    }
+
+    /**
+     * Test that deadlines on higher levels cascade down and fire in order
+     */
+    @Test
+    public void testAdvance_CascadesAcrossLevels() {
+        long start = 123_456 * TICK;
+        TimingWheel wheel = new TimingWheel(TICK, start);
+        long[] delays = {70, 600, 4_100, 5_000, 300_000};
+        for (int i = 0; i < delays.length; i++) {
+            wheel.schedule(i, start + delays[i] * TICK);
+        }
+
+        for (int i = 0; i < delays.length; i++) {
+            assertEquals(List.of(), wheel.advance(start + (delays[i] - 1) * TICK), "early at delay " + delays[i]);
+            assertEquals(List.of((long) i), wheel.advance(start + delays[i] * TICK));
+        }
+    }
+
+    /**
+     * Test that cancelled and rescheduled timers do not fire at their old deadline
+     */
+    @Test
+    public void testCancel_AndReschedule() {
+        TimingWheel wheel = new TimingWheel(TICK, 0);
+        wheel.schedule(1, 10_000);
+        wheel.schedule(2, 10_000);
+        wheel.cancel(1);
+        wheel.schedule(2, 200_000);
+
+        assertEquals(List.of(), wheel.advance(10_000));
+        assertEquals(1, wheel.size());
+        assertEquals(List.of(2L), wheel.advance(200_000));
+    }
+}
@@ -0,0 +1,104 @@
+package com.airport.ridepooling;
+
+import com.airport.ridepooling.model.Location;
+import com.airport.ridepooling.service.ZoneLockStripes;
+import com.airport.ridepooling.service.ZoneResolver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ZoneLockStripes
+ */
+public class ZoneLockStripesTest {
+
+    private static final Location TERMINAL = new Location(28.5562, 77.1000);
+
+    private final ZoneLockStripes stripes = new ZoneLockStripes();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch holding = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private CompletableFuture<String> holder;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        ReflectionTestUtils.setField(stripes, "enabled", true);
+        ReflectionTestUtils.invokeMethod(stripes, "init");
+
+        // Holds the stripes around the terminal until released
+        holder = CompletableFuture.supplyAsync(() -> stripes.callNear(TERMINAL, () -> {
+            holding.countDown();
+            await(release);
+            return "held";
+        }), executor);
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Test that a request in the same zone waits for the one holding it
+     */
+    @Test
+    public void testCallNear_SameZoneSerialized() throws Exception {
+        CompletableFuture<String> sameZone = callNear(new Location(28.5565, 77.1003));
+
+        assertThrows(TimeoutException.class, () -> sameZone.get(200, TimeUnit.MILLISECONDS));
+        release.countDown();
+        assertEquals("held", holder.get(5, TimeUnit.SECONDS));
+        assertEquals("booked", sameZone.get(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Test that a request in a neighbouring zone that can reach the same rides waits too
+     */
+    @Test
+    public void testCallNear_AdjacentZoneWithinRadiusSerialized() throws Exception {
+        Location nextTerminal = new Location(28.5600, 77.0700);
+        ZoneResolver zones = new ZoneResolver();
+        assertNotEquals(zones.zoneOf(TERMINAL), zones.zoneOf(nextTerminal));
+
+        CompletableFuture<String> adjacent = callNear(nextTerminal);
+
+        assertThrows(TimeoutException.class, () -> adjacent.get(200, TimeUnit.MILLISECONDS));
+        release.countDown();
+        assertEquals("booked", adjacent.get(5, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Test that a request out of matching reach of the held one runs in parallel
+     */
+    @Test
+    public void testCallNear_DistantZoneParallel() throws Exception {
+        CompletableFuture<String> distant = callNear(new Location(28.7041, 77.1025));
+
+        assertEquals("booked", distant.get(5, TimeUnit.SECONDS));
+        assertFalse(holder.isDone());
+    }
+
+    private CompletableFuture<String> callNear(Location pickup) {
+        return CompletableFuture.supplyAsync(() -> stripes.callNear(pickup, () -> "booked"), executor);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}